@@ -0,0 +1,76 @@
+package rsa_module.benchmarks;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import rsa_module.data_structures.Key_Set;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.data_structures.Rsa_Public_Key;
+
+/**
+ * Builds key pairs of a requested modulus size from a fixed seed, so that every benchmark run uses the same keys.
+ * @author James Talbott
+ */
+public class Benchmark_Keys {
+	
+	private static final BigInteger public_key_exponent = BigInteger.valueOf(65537);
+	
+	public static Key_Set make_keys(int modulusBits) {
+		return make_keys(modulusBits, 2);
+	}
+	
+	/**
+	 * Builds a key pair whose modulus is the product of the given number of primes. The last prime takes
+	 * whatever bits the others leave, so the modulus may fall a bit short of the requested size.
+	 */
+	public static Key_Set make_keys(int modulusBits, int primeCount) {
+		Random random = new Random(modulusBits);
+		BigInteger[] primes = new BigInteger[primeCount];
+		BigInteger totient;
+		do {
+			totient = BigInteger.ONE;
+			for (int index = 0; index < primeCount; index++) {
+				int bits = index < primeCount - 1 ? modulusBits / primeCount : modulusBits - (primeCount - 1) * (modulusBits / primeCount);
+				primes[index] = BigInteger.probablePrime(bits, random);
+				totient = totient.multiply(primes[index].subtract(BigInteger.ONE));
+			}
+		} while (new HashSet<BigInteger>(Arrays.asList(primes)).size() < primeCount
+				|| ! totient.gcd(public_key_exponent).equals(BigInteger.ONE));
+		BigInteger modulus = BigInteger.ONE;
+		for (BigInteger prime : primes) {
+			modulus = modulus.multiply(prime);
+		}
+		BigInteger privateExponent = public_key_exponent.modInverse(totient);
+		return new Key_Set(new Rsa_Public_Key(modulus, public_key_exponent, "self"),
+				new Rsa_Private_Key(modulus, privateExponent, primes));
+	}
+	
+	/**
+	 * Builds log-like text of the given length from a fixed seed, which compresses about as well as real logs.
+	 */
+	public static String make_log_text(int length) {
+		String[] levels = {"INFO ", "INFO ", "INFO ", "DEBUG", "WARN ", "ERROR"};
+		String[] events = {"Request completed", "Cache miss for key", "Connection opened to", "Retrying operation",
+				"User signed in as", "Scheduled job finished"};
+		Random random = new Random(length);
+		StringBuilder text = new StringBuilder(length + 128);
+		while (text.length() < length) {
+			text.append(String.format("2024-03-%02d %02d:%02d:%02d.%03d %s [worker-%d] %s %d in %d ms%n",
+					1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000),
+					levels[random.nextInt(levels.length)], random.nextInt(16), events[random.nextInt(events.length)],
+					random.nextInt(100000), random.nextInt(500)));
+		}
+		return text.substring(0, length);
+	}
+	
+	public static String make_text(int length) {
+		Random random = new Random(length);
+		char[] text = new char[length];
+		for (int index = 0; index < length; index++) {
+			text[index] = (char) (' ' + random.nextInt(95));
+		}
+		return new String(text);
+	}
+}
@@ -0,0 +1,32 @@
+package rsa_module.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Runs the benchmarks selected by the usual JMH command line arguments
+ * with the GC and allocation profiler enabled, and writes the results as JSON for comparison between runs.
+ * The output file defaults to benchmark-results.json and can be changed with -rff.
+ * @author James Talbott
+ */
+public class Benchmark_Runner {
+	
+	private static final String default_result_file = "benchmark-results.json";
+	
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(commandLine.getResult().orElse(default_result_file))
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,69 @@
+package rsa_module.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.Decrypted_Block_Cache;
+import rsa_module.Rsa_Decryption_Operator;
+import rsa_module.Rsa_Encryption_Operator;
+import rsa_module.data_structures.Key_Set;
+
+/**
+ * Decryption of a templated message that is received over and over, with and without the decrypted block cache.
+ * A cache size of 0 runs without a cache.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Block_Cache_Benchmark {
+	
+	@Param({"0", "4096"})
+	public int cacheSize;
+	
+	@Param({"4096"})
+	public int messageLength;
+	
+	@Param({"2048"})
+	public int modulusBits;
+	
+	private Key_Set keys;
+	
+	private String cipherText;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		keys = Benchmark_Keys.make_keys(modulusBits);
+		cipherText = new Rsa_Encryption_Operator(keys.getPublicKey(), Benchmark_Keys.make_log_text(messageLength)).getCipherText();
+		Rsa_Decryption_Operator.setBlockCache(cacheSize > 0 ? new Decrypted_Block_Cache(cacheSize) : null);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (Rsa_Decryption_Operator.getBlockCache() != null) {
+			System.out.println(Rsa_Decryption_Operator.getBlockCache().getStatusReport());
+		}
+		Rsa_Decryption_Operator.setBlockCache(null);
+	}
+	
+	@Benchmark
+	public String decrypt() {
+		return new Rsa_Decryption_Operator(keys.getPrivateKey(), cipherText).getPlainText();
+	}
+}
@@ -0,0 +1,74 @@
+package rsa_module.benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.Rsa_Decryption_Operator;
+import rsa_module.Rsa_Encryption_Operator;
+import rsa_module.Text_Encoding;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.data_structures.Rsa_Public_Key;
+
+/**
+ * The cost of the decimal wire format on its own: keys with an exponent of one make exponentiation trivial,
+ * so time and allocation are those of converting text to and from zero-padded decimal units.
+ * Compare gc.alloc.rate.norm, the bytes allocated per message, between runs.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Decimal_Format_Benchmark {
+	
+	@Param({"1024", "65536"})
+	public int messageLength;
+	
+	@Param({"1024", "2048"})
+	public int modulusBits;
+	
+	private Rsa_Public_Key publicKey;
+	
+	private Rsa_Private_Key privateKey;
+	
+	private String plainText;
+	
+	private String cipherText;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		BigInteger modulus = Benchmark_Keys.make_keys(modulusBits).getPublicKey().getModulus();
+		publicKey = new Rsa_Public_Key(modulus, BigInteger.ONE, "self");
+		privateKey = new Rsa_Private_Key(modulus, BigInteger.ONE);
+		plainText = Benchmark_Keys.make_text(messageLength);
+		cipherText = encrypt();
+		if (! decrypt().equals(plainText)) {
+			throw new IllegalStateException("Decryption did not reproduce the plaintext.");
+		}
+	}
+	
+	@Benchmark
+	public String encrypt() {
+		return new Rsa_Encryption_Operator(publicKey, plainText, Text_Encoding.DECIMAL_CHARACTERS).getCipherText();
+	}
+	
+	@Benchmark
+	public String decrypt() {
+		return new Rsa_Decryption_Operator(privateKey, cipherText).getPlainText();
+	}
+}
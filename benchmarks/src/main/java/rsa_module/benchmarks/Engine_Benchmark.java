@@ -0,0 +1,73 @@
+package rsa_module.benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.arithmetic.Big_Integer_Engine;
+import rsa_module.arithmetic.Exponentiation_Engine;
+import rsa_module.arithmetic.Montgomery_Engine;
+import rsa_module.data_structures.Key_Set;
+
+/**
+ * Single public and private operations with each exponentiation engine. Run with the GC profiler to compare the
+ * bytes each engine allocates per block.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Engine_Benchmark {
+	
+	@Param({"2048", "4096"})
+	public int modulusBits;
+	
+	@Param({"biginteger", "montgomery"})
+	public String engineName;
+	
+	private Exponentiation_Engine engine;
+	
+	private Key_Set keys;
+	
+	private BigInteger unit;
+	
+	private BigInteger cipherUnit;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		engine = engineName.equals("montgomery") ? new Montgomery_Engine() : new Big_Integer_Engine();
+		keys = Benchmark_Keys.make_keys(modulusBits);
+		unit = new BigInteger(modulusBits - 8, new Random(modulusBits));
+		cipherUnit = keys.getPublicKey().exponentiate(unit);
+		if (! engine.exponentiate(keys.getPublicKey(), unit).equals(cipherUnit)
+				|| ! engine.exponentiate(keys.getPrivateKey(), cipherUnit).equals(unit)) {
+			throw new IllegalStateException("Engine does not agree with modPow.");
+		}
+	}
+	
+	@Benchmark
+	public BigInteger publicOperation() {
+		return engine.exponentiate(keys.getPublicKey(), unit);
+	}
+	
+	@Benchmark
+	public BigInteger privateOperation() {
+		return engine.exponentiate(keys.getPrivateKey(), cipherUnit);
+	}
+}
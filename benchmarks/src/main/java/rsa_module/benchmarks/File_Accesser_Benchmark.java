@@ -0,0 +1,72 @@
+package rsa_module.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rsa_module.utility.File_Accesser;
+
+/**
+ * Whole-file and chunked reads and writes through File_Accesser on a temporary file.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class File_Accesser_Benchmark {
+	
+	@Param({"4096", "1048576", "8388608"})
+	public int fileLength;
+	
+	private Path file;
+	
+	private File_Accesser fileAccesser;
+	
+	private String text;
+	
+	@Setup
+	public void setUp() throws IOException {
+		file = Files.createTempFile("file_accesser_benchmark", ".txt");
+		fileAccesser = new File_Accesser(file.toFile());
+		text = Benchmark_Keys.make_text(fileLength);
+		fileAccesser.writeToFile(text);
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+	
+	@Benchmark
+	public String readFile() {
+		return fileAccesser.readFile();
+	}
+	
+	@Benchmark
+	public void writeToFile() {
+		fileAccesser.writeToFile(text);
+	}
+	
+	@Benchmark
+	public void readChunks(Blackhole blackhole) throws IOException {
+		fileAccesser.readChunks(blackhole::consume);
+	}
+}
@@ -0,0 +1,70 @@
+package rsa_module.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.Rsa_Decryption_Operator;
+import rsa_module.Rsa_Encryption_Operator;
+import rsa_module.Text_Encoding;
+import rsa_module.data_structures.Key_Set;
+
+/**
+ * Throughput of hybrid RSA + AES-GCM encryption against the pure RSA packed bytes path, for bulk messages under a
+ * full size key.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Hybrid_Benchmark {
+	
+	@Param({"1024", "65536", "1048576"})
+	public int messageLength;
+	
+	@Param({"2048"})
+	public int modulusBits;
+	
+	@Param({"PACKED_BYTES", "HYBRID_AES_GCM"})
+	public Text_Encoding encoding;
+	
+	private Key_Set keys;
+	
+	private String plainText;
+	
+	private String cipherText;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		keys = Benchmark_Keys.make_keys(modulusBits);
+		plainText = Benchmark_Keys.make_text(messageLength);
+		cipherText = new Rsa_Encryption_Operator(keys.getPublicKey(), plainText, encoding).getCipherText();
+		if (! new Rsa_Decryption_Operator(keys.getPrivateKey(), cipherText).getPlainText().equals(plainText)) {
+			throw new IllegalStateException("Decryption did not reproduce the plaintext.");
+		}
+	}
+	
+	@Benchmark
+	public String encrypt() {
+		return new Rsa_Encryption_Operator(keys.getPublicKey(), plainText, encoding).getCipherText();
+	}
+	
+	@Benchmark
+	public String decrypt() {
+		return new Rsa_Decryption_Operator(keys.getPrivateKey(), cipherText).getPlainText();
+	}
+}
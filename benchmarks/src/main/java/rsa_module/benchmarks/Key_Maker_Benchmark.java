@@ -0,0 +1,45 @@
+package rsa_module.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.data_structures.Key_Set;
+import rsa_module.key_making.Key_Maker;
+import rsa_module.utility.Entropy_Source;
+
+/**
+ * Key pair generation at production modulus sizes.
+ * With seeded entropy every invocation searches the same candidates, so the time per key does not vary with luck;
+ * with secure entropy it reflects real use.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Key_Maker_Benchmark {
+	
+	@Param({"2048", "3072", "4096"})
+	public int modulusBits;
+	
+	@Param({"secure", "seeded"})
+	public String entropy;
+	
+	@Benchmark
+	public Key_Set generateKeys() {
+		Entropy_Source source = entropy.equals("seeded") ? Entropy_Source.seeded(modulusBits) : Entropy_Source.secure();
+		return new Key_Maker(modulusBits, Key_Maker.default_prime_count, source).getNewKeys();
+	}
+}
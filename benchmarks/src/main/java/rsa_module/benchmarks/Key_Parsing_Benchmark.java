@@ -0,0 +1,56 @@
+package rsa_module.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.data_structures.Key_Set;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.data_structures.Rsa_Public_Key;
+
+/**
+ * Parsing keys from their KeyText.txt form, as done for every line of the file at startup.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Key_Parsing_Benchmark {
+	
+	@Param({"128", "2048", "4096"})
+	public int modulusBits;
+	
+	private String publicKeyText;
+	
+	private String privateKeyText;
+	
+	@Setup
+	public void setUp() {
+		Key_Set keys = Benchmark_Keys.make_keys(modulusBits);
+		publicKeyText = keys.getPublicKey().toString();
+		privateKeyText = "selfPrivate:" + keys.getPrivateKey().toString();
+	}
+	
+	@Benchmark
+	public Rsa_Public_Key parsePublicKey() {
+		return new Rsa_Public_Key(publicKeyText);
+	}
+	
+	@Benchmark
+	public Rsa_Private_Key parsePrivateKey() {
+		return new Rsa_Private_Key(privateKeyText);
+	}
+}
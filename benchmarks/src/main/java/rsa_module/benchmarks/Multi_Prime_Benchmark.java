@@ -0,0 +1,79 @@
+package rsa_module.benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.Rsa_Decryption_Operator;
+import rsa_module.Rsa_Encryption_Operator;
+import rsa_module.Text_Encoding;
+import rsa_module.data_structures.Key_Set;
+
+/**
+ * CRT decryption with two, three and four prime moduli at large key sizes, both for a single private operation
+ * and for a whole message.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Multi_Prime_Benchmark {
+	
+	@Param({"3072", "4096"})
+	public int modulusBits;
+	
+	@Param({"2", "3", "4"})
+	public int primeCount;
+	
+	@Param({"16384"})
+	public int messageLength;
+	
+	private Key_Set keys;
+	
+	private BigInteger cipherUnit;
+	
+	private String plainText;
+	
+	private String cipherText;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		keys = Benchmark_Keys.make_keys(modulusBits, primeCount);
+		BigInteger unit = new BigInteger(modulusBits - 8, new Random(modulusBits));
+		cipherUnit = keys.getPublicKey().exponentiate(unit);
+		if (! keys.getPrivateKey().exponentiate(cipherUnit).equals(unit)) {
+			throw new IllegalStateException("Decryption did not reproduce the unit.");
+		}
+		plainText = Benchmark_Keys.make_text(messageLength);
+		cipherText = new Rsa_Encryption_Operator(keys.getPublicKey(), plainText, Text_Encoding.PACKED_BYTES).getCipherText();
+		if (! new Rsa_Decryption_Operator(keys.getPrivateKey(), cipherText).getPlainText().equals(plainText)) {
+			throw new IllegalStateException("Decryption did not reproduce the plaintext.");
+		}
+	}
+	
+	@Benchmark
+	public BigInteger privateOperation() {
+		return keys.getPrivateKey().exponentiate(cipherUnit);
+	}
+	
+	@Benchmark
+	public String decrypt() {
+		return new Rsa_Decryption_Operator(keys.getPrivateKey(), cipherText).getPlainText();
+	}
+}
@@ -0,0 +1,70 @@
+package rsa_module.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.Rsa_Encryption_Operator;
+import rsa_module.Rsa_Multi_Recipient_Encryption_Operator;
+import rsa_module.data_structures.Rsa_Public_Key;
+
+/**
+ * Encrypting one message for several recipients, once per recipient against a single multi-recipient pass.
+ * Every recipient shares one key, which costs the same to encrypt with as distinct keys of the same size.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Multi_Recipient_Benchmark {
+	
+	@Param({"1", "4", "16"})
+	public int recipientCount;
+	
+	@Param({"65536"})
+	public int messageLength;
+	
+	@Param({"2048"})
+	public int modulusBits;
+	
+	private List<Rsa_Public_Key> recipients;
+	
+	private String plainText;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		recipients = Collections.nCopies(recipientCount, Benchmark_Keys.make_keys(modulusBits).getPublicKey());
+		plainText = Benchmark_Keys.make_text(messageLength);
+	}
+	
+	@Benchmark
+	public List<String> encryptSeparately() {
+		List<String> cipherTexts = new ArrayList<String>();
+		for (Rsa_Public_Key recipient : recipients) {
+			cipherTexts.add(new Rsa_Encryption_Operator(recipient, plainText).getCipherText());
+		}
+		return cipherTexts;
+	}
+	
+	@Benchmark
+	public List<String> encryptInOnePass() {
+		return new Rsa_Multi_Recipient_Encryption_Operator(recipients, plainText).getCipherTexts();
+	}
+}
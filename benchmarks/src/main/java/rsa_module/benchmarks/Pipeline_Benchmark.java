@@ -0,0 +1,85 @@
+package rsa_module.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.Rsa_Pipelined_Encryption_Operator;
+import rsa_module.Rsa_Stream_Encryption_Operator;
+import rsa_module.data_structures.Key_Set;
+import rsa_module.utility.Atomic_Replacement_Stream;
+import rsa_module.utility.File_Accesser;
+
+/**
+ * File to file encryption, with the stream operator reading, encrypting and writing in turn against the pipelined
+ * operator overlapping them.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Pipeline_Benchmark {
+	
+	@Param({"1048576", "8388608"})
+	public int messageLength;
+	
+	@Param({"2048"})
+	public int modulusBits;
+	
+	private Key_Set keys;
+	
+	private Path plainTextFile;
+	
+	private Path cipherTextFile;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		keys = Benchmark_Keys.make_keys(modulusBits);
+		plainTextFile = Files.createTempFile("pipeline_benchmark", ".txt");
+		cipherTextFile = Files.createTempFile("pipeline_benchmark", ".txt");
+		new File_Accesser(plainTextFile).writeToFile(Benchmark_Keys.make_text(messageLength));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(plainTextFile);
+		Files.deleteIfExists(cipherTextFile);
+	}
+	
+	@Benchmark
+	public void sequential() throws IOException {
+		try (InputStream plainText = new File_Accesser(plainTextFile).openInputStream();
+				Atomic_Replacement_Stream cipherText = new File_Accesser(cipherTextFile).openOutputStream()) {
+			new Rsa_Stream_Encryption_Operator(keys.getPublicKey()).encrypt(plainText, cipherText);
+			cipherText.commit();
+		}
+	}
+	
+	@Benchmark
+	public void pipelined() throws IOException {
+		try (InputStream plainText = new File_Accesser(plainTextFile).openInputStream();
+				Atomic_Replacement_Stream cipherText = new File_Accesser(cipherTextFile).openOutputStream()) {
+			new Rsa_Pipelined_Encryption_Operator(keys.getPublicKey()).encrypt(plainText, cipherText);
+			cipherText.commit();
+		}
+	}
+}
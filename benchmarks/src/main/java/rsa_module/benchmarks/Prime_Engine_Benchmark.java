@@ -0,0 +1,60 @@
+package rsa_module.benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.key_making.Prime_Candidate_Engine;
+
+/**
+ * Finding one random prime with the sieving Prime_Candidate_Engine against BigInteger.probablePrime, at the prime
+ * sizes of 2048 to 4096 bit moduli.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Prime_Engine_Benchmark {
+	
+	@Param({"1024", "1536", "2048"})
+	public int primeBits;
+	
+	@Param({"5"})
+	public int millerRabinRounds;
+	
+	private Prime_Candidate_Engine engine;
+	
+	private Random random;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		engine = new Prime_Candidate_Engine(millerRabinRounds);
+		random = new Random(primeBits);
+	}
+	
+	@Benchmark
+	public BigInteger candidateEngine() {
+		return engine.find(primeBits, random);
+	}
+	
+	@Benchmark
+	public BigInteger probablePrime() {
+		return BigInteger.probablePrime(primeBits, random);
+	}
+}
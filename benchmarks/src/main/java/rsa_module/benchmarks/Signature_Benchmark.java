@@ -0,0 +1,90 @@
+package rsa_module.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rsa_module.Rsa_Batch_Verification_Operator;
+import rsa_module.Rsa_Signing_Operator;
+import rsa_module.Rsa_Verification_Operator;
+import rsa_module.data_structures.Key_Set;
+
+/**
+ * Signing one message, verifying one, and verifying a batch of messages, one at a time against all at once.
+ * @author James Talbott
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Signature_Benchmark {
+	
+	@Param({"2048"})
+	public int modulusBits;
+	
+	@Param({"1000"})
+	public int batchSize;
+	
+	private Key_Set keys;
+	
+	private byte[] message;
+	
+	private String signature;
+	
+	private List<Rsa_Batch_Verification_Operator.Signed_Message> batch;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		keys = Benchmark_Keys.make_keys(modulusBits);
+		message = Benchmark_Keys.make_log_text(1024).getBytes(StandardCharsets.UTF_8);
+		signature = new Rsa_Signing_Operator(keys.getPrivateKey(), message).getSignature();
+		batch = new ArrayList<Rsa_Batch_Verification_Operator.Signed_Message>();
+		for (int index = 0; index < batchSize; index++) {
+			byte[] batchMessage = ("Status notice " + index).getBytes(StandardCharsets.UTF_8);
+			batch.add(new Rsa_Batch_Verification_Operator.Signed_Message(keys.getPublicKey(), batchMessage,
+					new Rsa_Signing_Operator(keys.getPrivateKey(), batchMessage).getSignature()));
+		}
+	}
+	
+	@Benchmark
+	public String sign() {
+		return new Rsa_Signing_Operator(keys.getPrivateKey(), message).getSignature();
+	}
+	
+	@Benchmark
+	public boolean verify() {
+		return new Rsa_Verification_Operator(keys.getPublicKey(), message, signature).isValid();
+	}
+	
+	@Benchmark
+	public int verifyBatchOneByOne() {
+		int valid = 0;
+		for (Rsa_Batch_Verification_Operator.Signed_Message signed : batch) {
+			if (new Rsa_Verification_Operator(signed.getSignerKey(), signed.getMessage(), signed.getSignature()).isValid()) {
+				valid++;
+			}
+		}
+		return valid;
+	}
+	
+	@Benchmark
+	public int verifyBatch() {
+		return new Rsa_Batch_Verification_Operator(batch).getValidCount();
+	}
+}
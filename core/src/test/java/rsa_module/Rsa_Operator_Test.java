@@ -0,0 +1,126 @@
+package rsa_module;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import rsa_module.data_structures.Key_Set;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.key_making.Key_Maker;
+import rsa_module.utility.Byte_Compressor;
+import rsa_module.utility.Entropy_Source;
+
+/**
+ * Round trips through each text encoding, a known answer for the original decimal encoding, and signatures.
+ * @author James Talbott
+ */
+class Rsa_Operator_Test {
+	
+	private static final String text = "Hi, é中 - 2024-03-01 INFO Request completed\n".repeat(40);
+	
+	private static Key_Set keys;
+	
+	@BeforeAll
+	static void make_keys() {
+		keys = new Key_Maker(1024, 2, Entropy_Source.seeded(1)).getNewKeys();
+	}
+	
+	private static String round_trip(String plain_text, Text_Encoding encoding) {
+		Rsa_Encryption_Operator encryption = new Rsa_Encryption_Operator(keys.getPublicKey(), plain_text, encoding);
+		assertEquals(encryption.getEncoding(), Text_Encoding.of(encryption.getCipherText()));
+		return new Rsa_Decryption_Operator(keys.getPrivateKey(), encryption.getCipherText()).getPlainText();
+	}
+	
+	@Test
+	void decimalCharactersKnownAnswer() {
+		//"Hi" is 00720105, cut into units of 3 digits as 007, 201 and 05, each encrypted and padded to 4 digits.
+		Rsa_Public_Key public_key = new Rsa_Public_Key(BigInteger.valueOf(3233), BigInteger.valueOf(17), "self");
+		Rsa_Private_Key private_key = new Rsa_Private_Key(BigInteger.valueOf(3233), BigInteger.valueOf(2753),
+				BigInteger.valueOf(61), BigInteger.valueOf(53));
+		String cipher_text = new Rsa_Encryption_Operator(public_key, "Hi", Text_Encoding.DECIMAL_CHARACTERS).getCipherText();
+		assertEquals("236903313086", cipher_text);
+		assertEquals("Hi", new Rsa_Decryption_Operator(private_key, cipher_text).getPlainText());
+	}
+	
+	/**
+	 * Only characters below 10000 survive the decimal encoding, so the CJK character is left out.
+	 */
+	@Test
+	void decimalCharactersRoundTrip() {
+		String decimal_text = text.replace("中", "");
+		for (int length = 1; length < 120; length += 7) {
+			assertEquals(decimal_text.substring(0, length),
+					round_trip(decimal_text.substring(0, length), Text_Encoding.DECIMAL_CHARACTERS));
+		}
+	}
+	
+	@Test
+	void packedBytesRoundTrip() {
+		for (int length = 0; length < 300; length += 13) {
+			assertEquals(text.substring(0, length), round_trip(text.substring(0, length), Text_Encoding.PACKED_BYTES));
+		}
+	}
+	
+	@Test
+	void deflatedBytesRoundTrip() {
+		Rsa_Encryption_Operator encryption = new Rsa_Encryption_Operator(keys.getPublicKey(), text, Text_Encoding.DEFLATED_BYTES);
+		assertEquals(Text_Encoding.DEFLATED_BYTES, encryption.getEncoding());
+		assertTrue(encryption.getCipherText().length()
+				< new Rsa_Encryption_Operator(keys.getPublicKey(), text, Text_Encoding.PACKED_BYTES).getCipherText().length());
+		assertEquals(text, round_trip(text, Text_Encoding.DEFLATED_BYTES));
+		assertEquals("x", round_trip("x", Text_Encoding.DEFLATED_BYTES));
+	}
+	
+	@Test
+	void hybridRoundTrip() {
+		assertEquals(text, round_trip(text, Text_Encoding.HYBRID_AES_GCM));
+	}
+	
+	@Test
+	void deflatedBytesRefuseMoreThanTheMaximum() {
+		String cipher_text = new Rsa_Encryption_Operator(keys.getPublicKey(), text, Text_Encoding.DEFLATED_BYTES).getCipherText();
+		try {
+			Rsa_Decryption_Operator.setMaximumInflatedLength(text.length() / 2);
+			assertThrows(IllegalArgumentException.class,
+					() -> new Rsa_Decryption_Operator(keys.getPrivateKey(), cipher_text));
+		} finally {
+			Rsa_Decryption_Operator.setMaximumInflatedLength(Byte_Compressor.default_maximum_inflated_length);
+		}
+	}
+	
+	@Test
+	void signatureVerifies() {
+		byte[] message = text.getBytes(StandardCharsets.UTF_8);
+		String signature = new Rsa_Signing_Operator(keys.getPrivateKey(), message).getSignature();
+		assertTrue(new Rsa_Verification_Operator(keys.getPublicKey(), message, signature).isValid());
+		message[0] ^= 1;
+		assertFalse(new Rsa_Verification_Operator(keys.getPublicKey(), message, signature).isValid());
+	}
+	
+	@Test
+	void alteredSignatureFails() {
+		byte[] message = text.getBytes(StandardCharsets.UTF_8);
+		String signature = new Rsa_Signing_Operator(keys.getPrivateKey(), message).getSignature();
+		char last = signature.charAt(signature.length() - 1);
+		String altered = signature.substring(0, signature.length() - 1) + (last == '0' ? '1' : '0');
+		assertFalse(new Rsa_Verification_Operator(keys.getPublicKey(), message, altered).isValid());
+		assertFalse(new Rsa_Verification_Operator(keys.getPublicKey(), message, signature.substring(1)).isValid());
+		assertFalse(new Rsa_Verification_Operator(keys.getPublicKey(), message, null).isValid());
+		Key_Set other_keys = new Key_Maker(1024, 2, Entropy_Source.seeded(2)).getNewKeys();
+		assertFalse(new Rsa_Verification_Operator(other_keys.getPublicKey(), message, signature).isValid());
+	}
+	
+	@Test
+	void keyTooSmallForPaddingVerifiesNothing() {
+		Rsa_Public_Key small_key = new Rsa_Public_Key(BigInteger.valueOf(3233), BigInteger.valueOf(17), "small");
+		assertFalse(new Rsa_Verification_Operator(small_key, new byte[] {1, 2, 3}, "1234").isValid());
+	}
+}
@@ -0,0 +1,123 @@
+package rsa_module.arithmetic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import rsa_module.data_structures.Key_Set;
+import rsa_module.data_structures.Rsa_Key;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.key_making.Key_Maker;
+import rsa_module.utility.Entropy_Source;
+
+/**
+ * Checks Montgomery_Engine against BigInteger.modPow from a fixed seed. Covers random odd moduli of 2 to 700 bits
+ * with edge case exponents and units, and key pairs of 512 to 4096 bits as public keys, as two-prime private keys
+ * split by CRT, as private keys without their primes and as three-prime private keys.
+ * @author James Talbott
+ */
+class Montgomery_Engine_Test {
+	
+	private static final long seed = 1;
+	
+	private static final int units_per_modulus = 20;
+	
+	private static final int[] key_sizes = {512, 1024, 2048, 3072, 4096};
+	
+	private static final int allocation_blocks = 200;
+	
+	/**
+	 * The result BigInteger is the only allocation expected, about 8 bytes per limb plus its headers, which
+	 * comes to a little over 300 bytes for a 2048 bit modulus.
+	 */
+	private static final long maximum_bytes_per_block = 1024;
+	
+	private final Random random = new Random(seed);
+	
+	private final Exponentiation_Engine engine = new Montgomery_Engine();
+	
+	/**
+	 * Every length up to 140 bits, so that every limb boundary is crossed, then every 37 bits up to 700.
+	 */
+	@Test
+	void randomModuliMatchModPow() {
+		for (int bits = 2; bits <= 700; bits += bits < 140 ? 1 : 37) {
+			for (int index = 0; index < units_per_modulus; index++) {
+				BigInteger modulus = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+				BigInteger exponent;
+				if (index == 0) {
+					exponent = BigInteger.ZERO;
+				} else if (index == 1) {
+					exponent = BigInteger.ONE;
+				} else {
+					exponent = new BigInteger(1 + random.nextInt(bits + 80), random);
+				}
+				BigInteger unit;
+				if (index == 2) {
+					unit = BigInteger.ZERO;
+				} else if (index == 3) {
+					unit = modulus.subtract(BigInteger.ONE);
+				} else {
+					unit = new BigInteger(bits, random).mod(modulus);
+				}
+				check(new Rsa_Public_Key(modulus, exponent, "check"), unit, unit.modPow(exponent, modulus));
+			}
+		}
+	}
+	
+	@Test
+	void keysMatchModPow() {
+		for (int bits : key_sizes) {
+			Key_Set keys = new Key_Maker(bits, 2, Entropy_Source.seeded(seed + bits)).getNewKeys();
+			Rsa_Private_Key crt_key = keys.getPrivateKey();
+			Rsa_Private_Key plain_key = new Rsa_Private_Key(crt_key.getModulus(), crt_key.getExponent());
+			Rsa_Private_Key three_prime_key = new Key_Maker(bits, 3, Entropy_Source.seeded(seed - bits)).getNewKeys().getPrivateKey();
+			for (int index = 0; index < units_per_modulus; index++) {
+				BigInteger unit = new BigInteger(bits - 1, random);
+				check_against_mod_pow(keys.getPublicKey(), unit);
+				BigInteger cipher_unit = unit.modPow(keys.getPublicKey().getExponent(), keys.getPublicKey().getModulus());
+				check_against_mod_pow(crt_key, cipher_unit);
+				check_against_mod_pow(plain_key, cipher_unit);
+				check_against_mod_pow(three_prime_key, unit.mod(three_prime_key.getModulus()));
+			}
+		}
+	}
+	
+	@Test
+	void allocatesOnlyTheResult() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "This JVM does not report allocation per thread.");
+		com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+		long thread = Thread.currentThread().getId();
+		Key_Set keys = new Key_Maker(2048, 2, Entropy_Source.seeded(seed)).getNewKeys();
+		BigInteger cipher_unit = keys.getPublicKey().exponentiate(new BigInteger(2040, random));
+		for (Rsa_Key key : new Rsa_Key[] {keys.getPublicKey(), keys.getPrivateKey()}) {
+			for (int block = 0; block < allocation_blocks; block++) {
+				engine.exponentiate(key, cipher_unit);
+			}
+			long before = allocation.getThreadAllocatedBytes(thread);
+			for (int block = 0; block < allocation_blocks; block++) {
+				engine.exponentiate(key, cipher_unit);
+			}
+			long bytes = (allocation.getThreadAllocatedBytes(thread) - before) / allocation_blocks;
+			assertTrue(bytes <= maximum_bytes_per_block, bytes + " bytes allocated per block.");
+		}
+	}
+	
+	private void check_against_mod_pow(Rsa_Key key, BigInteger unit) {
+		check(key, unit, unit.modPow(key.getExponent(), key.getModulus()));
+	}
+	
+	private void check(Rsa_Key key, BigInteger unit, BigInteger expected) {
+		assertEquals(expected, engine.exponentiate(key, unit),
+				() -> "Modulus " + key.getModulus() + ", exponent " + key.getExponent() + ", unit " + unit + ".");
+	}
+}
@@ -0,0 +1,147 @@
+package rsa_module.data_structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a keystore recovers from a torn final record, and that compaction keeps exactly the live records.
+ * @author James Talbott
+ */
+class Key_Store_Test {
+	
+	private final Random random = new Random(1);
+	
+	@TempDir
+	Path directory;
+	
+	private Rsa_Public_Key new_key(String id) {
+		return new Rsa_Public_Key(new BigInteger(512, random).setBit(511), BigInteger.valueOf(65537), id);
+	}
+	
+	private Rsa_Private_Key new_private_key() {
+		return new Rsa_Private_Key(new BigInteger(512, random).setBit(511), new BigInteger(500, random));
+	}
+	
+	@Test
+	void keysSurviveReopening() throws IOException {
+		Path path = directory.resolve("keys.rks");
+		Map<String, Rsa_Public_Key> expected = new HashMap<String, Rsa_Public_Key>();
+		Rsa_Private_Key private_key = new_private_key();
+		try (Key_Store store = new Key_Store(path)) {
+			for (int index = 0; index < 50; index++) {
+				Rsa_Public_Key key = new_key("id" + index);
+				store.put(key.getID(), key);
+				expected.put(key.getID(), key);
+			}
+			store.putPrivateKey(private_key);
+		}
+		try (Key_Store store = new Key_Store(path)) {
+			assertEquals(expected, new HashMap<String, Rsa_Public_Key>(store));
+			assertEquals(private_key, store.getPrivateKey());
+			Rsa_Public_Key key = expected.get("id7");
+			assertEquals("id7", store.findID(key));
+			assertEquals(key, store.getByFingerprint(key.getContext().getFingerprint()));
+		}
+	}
+	
+	@Test
+	void tornTailIsTruncated() throws IOException {
+		Path path = directory.resolve("keys.rks");
+		try (Key_Store store = new Key_Store(path)) {
+			store.put("alice", new_key("alice"));
+			store.put("bob", new_key("bob"));
+		}
+		long intact_length = Files.size(path);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+			//A header promising a 200 byte payload, followed by only part of it.
+			channel.write(ByteBuffer.allocate(40).putInt(200).putInt(12345).rewind());
+		}
+		try (Key_Store store = new Key_Store(path)) {
+			assertEquals(intact_length, Files.size(path));
+			assertEquals(2, store.size());
+			store.put("carol", new_key("carol"));
+		}
+		try (Key_Store store = new Key_Store(path)) {
+			assertEquals(3, store.size());
+			assertTrue(store.containsKey("carol"));
+		}
+	}
+	
+	@Test
+	void recordFailingItsChecksumEndsTheStore() throws IOException {
+		Path path = directory.resolve("keys.rks");
+		try (Key_Store store = new Key_Store(path)) {
+			store.put("alice", new_key("alice"));
+		}
+		long alice_end = Files.size(path);
+		try (Key_Store store = new Key_Store(path)) {
+			store.put("bob", new_key("bob"));
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer last_byte = ByteBuffer.allocate(1);
+			channel.read(last_byte, channel.size() - 1);
+			last_byte.put(0, (byte) (last_byte.get(0) ^ 1));
+			channel.write(last_byte.rewind(), channel.size() - 1);
+		}
+		try (Key_Store store = new Key_Store(path)) {
+			assertEquals(alice_end, Files.size(path));
+			assertTrue(store.containsKey("alice"));
+			assertNull(store.get("bob"));
+		}
+	}
+	
+	@Test
+	void compactionKeepsOnlyLiveRecords() throws IOException {
+		Path path = directory.resolve("keys.rks");
+		Map<String, Rsa_Public_Key> expected = new HashMap<String, Rsa_Public_Key>();
+		Rsa_Private_Key private_key = new_private_key();
+		try (Key_Store store = new Key_Store(path)) {
+			store.putPrivateKey(private_key);
+			//Replacing every key once leaves as many dead records as live ones, short of compacting in the background.
+			for (int round = 0; round < 2; round++) {
+				for (int index = 0; index < 100; index++) {
+					Rsa_Public_Key key = new_key("id" + index);
+					store.put(key.getID(), key);
+					expected.put(key.getID(), key);
+				}
+			}
+			assertEquals(100, store.getDeadRecordCount());
+			long length = Files.size(path);
+			store.compact();
+			assertEquals(0, store.getDeadRecordCount());
+			assertTrue(Files.size(path) * 5 < length * 3);
+			assertEquals(expected, new HashMap<String, Rsa_Public_Key>(store));
+			assertEquals(private_key, store.getPrivateKey());
+			Rsa_Public_Key replaced = new_key("id3");
+			store.put("id3", replaced);
+			expected.put("id3", replaced);
+		}
+		try (Key_Store store = new Key_Store(path)) {
+			assertEquals(1, store.getDeadRecordCount());
+			assertEquals(expected, new HashMap<String, Rsa_Public_Key>(store));
+			assertEquals(private_key, store.getPrivateKey());
+		}
+	}
+	
+	@Test
+	void refusesFilesThatAreNotKeystores() throws IOException {
+		Path path = Files.writeString(directory.resolve("keys.txt"), "not a keystore");
+		assertThrows(IllegalArgumentException.class, () -> new Key_Store(path));
+	}
+}
@@ -0,0 +1,60 @@
+package rsa_module.data_structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import rsa_module.key_making.Key_Maker;
+import rsa_module.utility.Entropy_Source;
+
+/**
+ * Checks CRT recombination, and its extension to further primes by Garner's method, against plain modPow.
+ * @author James Talbott
+ */
+class Rsa_Private_Key_Test {
+	
+	private final Random random = new Random(1);
+	
+	@Test
+	void twoPrimeKnownAnswer() {
+		Rsa_Private_Key key = new Rsa_Private_Key(BigInteger.valueOf(3233), BigInteger.valueOf(2753),
+				BigInteger.valueOf(61), BigInteger.valueOf(53));
+		assertEquals(BigInteger.valueOf(65), key.exponentiate(BigInteger.valueOf(2790)));
+	}
+	
+	@Test
+	void threePrimeKnownAnswer() {
+		Rsa_Private_Key key = new Rsa_Private_Key(BigInteger.valueOf(2431), BigInteger.valueOf(823),
+				new BigInteger[] {BigInteger.valueOf(11), BigInteger.valueOf(13), BigInteger.valueOf(17)});
+		assertEquals(3, key.getPrimeCount());
+		assertEquals(BigInteger.valueOf(100), key.exponentiate(BigInteger.valueOf(2388)));
+	}
+	
+	@Test
+	void recombinationMatchesModPow() {
+		for (int primeCount = 2; primeCount <= 4; primeCount++) {
+			Key_Set keys = new Key_Maker(1024, primeCount, Entropy_Source.seeded(primeCount)).getNewKeys();
+			Rsa_Private_Key crt_key = keys.getPrivateKey();
+			assertEquals(primeCount, crt_key.getPrimeCount());
+			for (int index = 0; index < 20; index++) {
+				BigInteger unit = new BigInteger(1023, random);
+				BigInteger cipher_unit = keys.getPublicKey().exponentiate(unit);
+				assertEquals(cipher_unit.modPow(crt_key.getExponent(), crt_key.getModulus()), crt_key.exponentiate(cipher_unit));
+				assertEquals(unit, crt_key.exponentiate(cipher_unit));
+			}
+		}
+	}
+	
+	@Test
+	void parsedKeyKeepsItsPrimes() {
+		Rsa_Private_Key key = new Key_Maker(1024, 3, Entropy_Source.seeded(1)).getNewKeys().getPrivateKey();
+		Rsa_Private_Key parsed = new Rsa_Private_Key(key.toString());
+		assertEquals(key, parsed);
+		assertEquals(3, parsed.getPrimeCount());
+		BigInteger unit = new BigInteger(1000, random);
+		assertEquals(key.exponentiate(unit), parsed.exponentiate(unit));
+	}
+}
@@ -0,0 +1,67 @@
+package rsa_module.utility;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Round trips through Byte_Compressor and Byte_Block_Packer, which the deflated and packed encodings are built on.
+ * @author James Talbott
+ */
+class Byte_Compressor_Test {
+	
+	private final Random random = new Random(1);
+	
+	@Test
+	void inflateReversesDeflate() {
+		byte[] text = "2024-03-01 INFO Request completed\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+		byte[] compressed = Byte_Compressor.deflate(text);
+		assertTrue(compressed.length < text.length);
+		assertArrayEquals(text, Byte_Compressor.inflate(compressed));
+		byte[] noise = new byte[5000];
+		random.nextBytes(noise);
+		assertArrayEquals(noise, Byte_Compressor.inflate(Byte_Compressor.deflate(noise)));
+		assertArrayEquals(new byte[0], Byte_Compressor.inflate(Byte_Compressor.deflate(new byte[0])));
+	}
+	
+	@Test
+	void inflateRefusesMoreThanTheMaximum() {
+		byte[] compressed = Byte_Compressor.deflate(new byte[100_000]);
+		assertArrayEquals(new byte[100_000], Byte_Compressor.inflate(compressed, 100_000));
+		assertThrows(IllegalArgumentException.class, () -> Byte_Compressor.inflate(compressed, 99_999));
+	}
+	
+	@Test
+	void inflateRefusesDamagedStreams() {
+		byte[] compressed = Byte_Compressor.deflate("some text to compress".repeat(20).getBytes(StandardCharsets.UTF_8));
+		assertThrows(IllegalArgumentException.class,
+				() -> Byte_Compressor.inflate(Arrays.copyOf(compressed, compressed.length - 3)));
+		compressed[compressed.length - 1] ^= 1;
+		assertThrows(IllegalArgumentException.class, () -> Byte_Compressor.inflate(compressed));
+	}
+	
+	@Test
+	void unpackReversesPack() {
+		for (int length = 0; length < 200; length++) {
+			byte[] bytes = new byte[length];
+			random.nextBytes(bytes);
+			for (int blockSize : new int[] {1, 7, 63, 127}) {
+				BigInteger[] blocks = Byte_Block_Packer.pack(bytes, blockSize);
+				assertArrayEquals(bytes, Byte_Block_Packer.unpack(blocks, blockSize));
+			}
+		}
+	}
+	
+	@Test
+	void unpackRefusesMissingPadding() {
+		assertThrows(IllegalArgumentException.class,
+				() -> Byte_Block_Packer.unpack(new BigInteger[] {BigInteger.valueOf(0x4142)}, 2));
+	}
+}
@@ -0,0 +1,91 @@
+package rsa_module.utility;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks Decimal_Codec against the String.format and substring code it replaced, which defines the wire format.
+ * @author James Talbott
+ */
+class Decimal_Codec_Test {
+	
+	private final Random random = new Random(1);
+	
+	private final Decimal_Codec codec = new Decimal_Codec();
+	
+	@Test
+	void writeMatchesZeroPaddedFormat() {
+		for (int bits = 1; bits <= 1200; bits += bits < 80 ? 1 : 31) {
+			BigInteger unit = new BigInteger(bits, random);
+			int length = unit.toString().length();
+			for (int width : new int[] {1, length, length + 1, length + 9, length + 10}) {
+				String expected = String.format("%0" + width + "d", unit);
+				byte[] written = new byte[expected.length() + 2];
+				assertEquals(expected.length(), codec.write(unit, width, written, 1));
+				assertEquals(expected, new String(written, 1, expected.length(), StandardCharsets.US_ASCII));
+			}
+		}
+	}
+	
+	@Test
+	void writeFormatsGroupBoundaries() {
+		for (String digits : new String[] {"0", "9", "999999999", "1000000000", "1000000001", "999999999999999999",
+				"1000000000000000000", "100000000000000000000000000000000000000"}) {
+			BigInteger unit = new BigInteger(digits);
+			byte[] written = new byte[digits.length() + 20];
+			int length = codec.write(unit, digits.length() + 20, written, 0);
+			assertEquals(String.format("%0" + (digits.length() + 20) + "d", unit),
+					new String(written, 0, length, StandardCharsets.US_ASCII));
+		}
+	}
+	
+	@Test
+	void parseMatchesSubstring() {
+		for (int bits = 1; bits <= 1200; bits += bits < 80 ? 1 : 31) {
+			String text = "v2:" + String.format("%0" + (bits / 3 + 12) + "d", new BigInteger(bits, random)) + "\n";
+			byte[] digits = text.getBytes(StandardCharsets.US_ASCII);
+			for (int length = 1; length < text.length() - 4; length += 1 + length / 7) {
+				assertEquals(new BigInteger(text.substring(3, 3 + length)), codec.parse(digits, 3, length));
+			}
+		}
+	}
+	
+	@Test
+	void parseRejectsNonDigits() {
+		byte[] digits = "12a4".getBytes(StandardCharsets.US_ASCII);
+		assertThrows(NumberFormatException.class, () -> codec.parse(digits, 0, 4));
+		assertThrows(NumberFormatException.class, () -> codec.parse(digits, 0, 0));
+	}
+	
+	@Test
+	void charactersMatchFourDigitCodes() {
+		String text = "Hi, é\u0000~" + (char) 9999;
+		StringBuilder expected = new StringBuilder();
+		for (int index = 0; index < text.length(); index++) {
+			expected.append(String.format("%04d", (int) text.charAt(index)));
+		}
+		byte[] digits = new byte[Decimal_Codec.numeric_length(text)];
+		Decimal_Codec.write_characters(text, digits);
+		assertEquals(expected.toString(), new String(digits, StandardCharsets.US_ASCII));
+		assertArrayEquals(text.toCharArray(), Decimal_Codec.read_characters(digits, digits.length));
+	}
+	
+	/**
+	 * As in the original format, such characters cannot be read back from groups of four.
+	 */
+	@Test
+	void charactersFromTenThousandTakeFiveDigits() {
+		String text = "a" + (char) 10000 + (char) 65535;
+		assertEquals(14, Decimal_Codec.numeric_length(text));
+		byte[] digits = new byte[14];
+		Decimal_Codec.write_characters(text, digits);
+		assertEquals("00971000065535", new String(digits, StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,144 @@
+package rsa_module;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of decrypted blocks for Rsa_Decryption_Operator. Encryption is deterministic, so a repeated
+ * plaintext block under the same key is always the same ciphertext block, and its decryption can be reused
+ * rather than exponentiated again. Entries are keyed by the fingerprint of the key and the ciphertext block;
+ * once the cache is full, the least recently used entry is evicted.
+ * Safe for concurrent use. The cache holds decrypted plaintext, so it should be cleared whenever keys are rotated.
+ * @author James Talbott
+ */
+public class Decrypted_Block_Cache {
+	
+	private final int capacity;
+	
+	private final Map<Block_Key, BigInteger> blocks;
+	
+	private final AtomicLong hits = new AtomicLong();
+	
+	private final AtomicLong misses = new AtomicLong();
+	
+	private final AtomicLong evictions = new AtomicLong();
+	
+	private static final class Block_Key {
+		
+		private final long fingerprint;
+		
+		private final BigInteger cipherBlock;
+		
+		private Block_Key(long fingerprint, BigInteger cipherBlock) {
+			this.fingerprint = fingerprint;
+			this.cipherBlock = cipherBlock;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (o instanceof Block_Key) {
+				Block_Key key = (Block_Key) o;
+				return fingerprint == key.fingerprint && cipherBlock.equals(key.cipherBlock);
+			} else {
+				return false;
+			}
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * Long.hashCode(fingerprint) + cipherBlock.hashCode();
+		}
+	}
+	
+	/**
+	 * @param capacity The most blocks held at once.
+	 */
+	public Decrypted_Block_Cache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Block cache needs a capacity of at least one.");
+		}
+		this.capacity = capacity;
+		this.blocks = new LinkedHashMap<Block_Key, BigInteger>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Block_Key, BigInteger> eldest) {
+				if (size() > Decrypted_Block_Cache.this.capacity) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+	
+	/**
+	 * @param fingerprint The fingerprint of the key the block was encrypted for.
+	 * @param cipherBlock The ciphertext block.
+	 * @return The decrypted block, or null if it is not cached.
+	 */
+	public BigInteger get(long fingerprint, BigInteger cipherBlock) {
+		BigInteger plainBlock;
+		synchronized (blocks) {
+			plainBlock = blocks.get(new Block_Key(fingerprint, cipherBlock));
+		}
+		if (plainBlock == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return plainBlock;
+	}
+	
+	/**
+	 * Caches a decrypted block, evicting the least recently used block if the cache is full.
+	 */
+	public void put(long fingerprint, BigInteger cipherBlock, BigInteger plainBlock) {
+		synchronized (blocks) {
+			blocks.put(new Block_Key(fingerprint, cipherBlock), plainBlock);
+		}
+	}
+	
+	/**
+	 * Removes every block, leaving the counts as they are.
+	 */
+	public void clear() {
+		synchronized (blocks) {
+			blocks.clear();
+		}
+	}
+	
+	public int size() {
+		synchronized (blocks) {
+			return blocks.size();
+		}
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public long getHitCount() {
+		return hits.get();
+	}
+	
+	public long getMissCount() {
+		return misses.get();
+	}
+	
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+	
+	/**
+	 * @return The occupancy and the hit, miss and eviction counts, in a line for the user.
+	 */
+	public String getStatusReport() {
+		long lookups = getHitCount() + getMissCount();
+		return String.format("Block cache: %d of %d blocks cached, %d hits, %d misses (%.1f%% hit rate), %d evictions.",
+				size(), capacity, getHitCount(), getMissCount(), lookups == 0 ? 0.0 : 100.0 * getHitCount() / lookups, getEvictionCount());
+	}
+}
@@ -0,0 +1,75 @@
+package rsa_module;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+import rsa_module.arithmetic.Big_Integer_Engine;
+import rsa_module.arithmetic.Exponentiation_Engine;
+import rsa_module.data_structures.Rsa_Key;
+
+/**
+ * Decides how the operators exponentiate an array of units: in a plain loop, or split across a ForkJoinPool.
+ * Every unit is transformed independently, so both ways produce identical output.
+ * @author James Talbott
+ */
+public class Parallel_Execution {
+	
+	public static final int default_threshold = 64;
+	
+	private static final Parallel_Execution sequential = new Parallel_Execution(null, Integer.MAX_VALUE);
+	
+	private final ForkJoinPool pool;
+	
+	private final int threshold;
+	
+	/**
+	 * @param pool The pool to run on, or null to always run sequentially.
+	 * @param threshold The number of units at or below which work is not split further.
+	 */
+	public Parallel_Execution(ForkJoinPool pool, int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("Threshold must be at least one unit.");
+		}
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+	
+	public Parallel_Execution(ForkJoinPool pool) {
+		this(pool, default_threshold);
+	}
+	
+	public static Parallel_Execution sequential() {
+		return sequential;
+	}
+	
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+	
+	public int getThreshold() {
+		return threshold;
+	}
+	
+	/**
+	 * Replaces each of the first count units with the result of exponentiating it with the key.
+	 * @param units The units to transform in place.
+	 * @param count The number of units at the start of the array to transform.
+	 * @param key The key to exponentiate with.
+	 */
+	public void exponentiate_units(BigInteger[] units, int count, Rsa_Key key) {
+		exponentiate_units(units, count, key, new Big_Integer_Engine());
+	}
+	
+	/**
+	 * As above, exponentiating with the given engine.
+	 */
+	public void exponentiate_units(BigInteger[] units, int count, Rsa_Key key, Exponentiation_Engine engine) {
+		if (pool == null || count <= threshold) {
+			for (int index = 0; index < count; index++) {
+				units[index] = engine.exponentiate(key, units[index]);
+			}
+		} else {
+			pool.invoke(new Unit_Exponentiation_Task(units, 0, count, key, engine, threshold));
+		}
+	}
+}
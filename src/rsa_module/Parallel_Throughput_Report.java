@@ -0,0 +1,96 @@
+package rsa_module;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import rsa_module.data_structures.Key_Set;
+import rsa_module.key_making.Key_Maker;
+
+/**
+ * Prints encryption and decryption throughput for the same message on pools of increasing size,
+ * along with the speedup over the sequential path, measured after one warm-up pass. Also checks that every run produced identical output.
+ * Optional arguments: message length in characters, then number of repetitions per measurement.
+ * @author James Talbott
+ */
+public class Parallel_Throughput_Report {
+	
+	public static void main(String[] args) {
+		int messageLength = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		Key_Set keys = new Key_Maker().getNewKeys();
+		String plainText = random_text(messageLength);
+		
+		Rsa_Operator.setParallelExecution(Parallel_Execution.sequential());
+		String expectedCipherText = new Rsa_Encryption_Operator(keys.getPublicKey(), plainText).getCipherText();
+		time_encryption(keys, plainText, repetitions);
+		time_decryption(keys, expectedCipherText, repetitions);
+		double sequentialEncrypt = time_encryption(keys, plainText, repetitions);
+		double sequentialDecrypt = time_decryption(keys, expectedCipherText, repetitions);
+		System.out.println("Modulus bits: " + keys.getPublicKey().getModulus().bitLength() + ", message chars: " + messageLength);
+		System.out.println(String.format("%8s %14s %9s %14s %9s", "cores", "encrypt MB/s", "speedup", "decrypt MB/s", "speedup"));
+		print_row("seq", messageLength, sequentialEncrypt, sequentialEncrypt, sequentialDecrypt, sequentialDecrypt);
+		
+		int availableCores = Runtime.getRuntime().availableProcessors();
+		for (int cores = 1; cores <= availableCores; cores = next_core_count(cores, availableCores)) {
+			ForkJoinPool pool = new ForkJoinPool(cores);
+			Rsa_Operator.setParallelExecution(new Parallel_Execution(pool));
+			check_identical_output(keys, plainText, expectedCipherText);
+			double encrypt = time_encryption(keys, plainText, repetitions);
+			double decrypt = time_decryption(keys, expectedCipherText, repetitions);
+			print_row(Integer.toString(cores), messageLength, encrypt, sequentialEncrypt, decrypt, sequentialDecrypt);
+			pool.shutdown();
+		}
+		Rsa_Operator.setParallelExecution(Parallel_Execution.sequential());
+	}
+	
+	private static int next_core_count(int cores, int availableCores) {
+		if (cores < availableCores && cores * 2 > availableCores) {
+			return availableCores;
+		}
+		return cores * 2;
+	}
+	
+	private static String random_text(int length) {
+		Random random = new Random(1);
+		char[] text = new char[length];
+		for (int index = 0; index < length; index++) {
+			text[index] = (char) (' ' + random.nextInt(95));
+		}
+		return new String(text);
+	}
+	
+	private static void check_identical_output(Key_Set keys, String plainText, String expectedCipherText) {
+		String cipherText = new Rsa_Encryption_Operator(keys.getPublicKey(), plainText).getCipherText();
+		String decrypted = new Rsa_Decryption_Operator(keys.getPrivateKey(), cipherText).getPlainText();
+		if (! cipherText.equals(expectedCipherText) || ! decrypted.equals(plainText)) {
+			throw new IllegalStateException("Parallel output differs from sequential output.");
+		}
+	}
+	
+	private static double time_encryption(Key_Set keys, String plainText, int repetitions) {
+		long start = System.nanoTime();
+		for (int run = 0; run < repetitions; run++) {
+			new Rsa_Encryption_Operator(keys.getPublicKey(), plainText).getCipherText();
+		}
+		return (System.nanoTime() - start) / (double) repetitions;
+	}
+	
+	private static double time_decryption(Key_Set keys, String cipherText, int repetitions) {
+		long start = System.nanoTime();
+		for (int run = 0; run < repetitions; run++) {
+			new Rsa_Decryption_Operator(keys.getPrivateKey(), cipherText).getPlainText();
+		}
+		return (System.nanoTime() - start) / (double) repetitions;
+	}
+	
+	private static void print_row(String cores, int messageLength, double encrypt, double sequentialEncrypt, 
+			double decrypt, double sequentialDecrypt) {
+		System.out.println(String.format("%8s %14.2f %8.2fx %14.2f %8.2fx", cores,
+				megabytes_per_second(messageLength, encrypt), sequentialEncrypt / encrypt,
+				megabytes_per_second(messageLength, decrypt), sequentialDecrypt / decrypt));
+	}
+	
+	private static double megabytes_per_second(int messageLength, double nanoseconds) {
+		return messageLength / (nanoseconds / 1e9) / (1024 * 1024);
+	}
+}
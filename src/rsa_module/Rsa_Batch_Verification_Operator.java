@@ -0,0 +1,127 @@
+package rsa_module;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.utility.Signature_Padding;
+
+/**
+ * Verifies many signed messages at once, spread across the operators' pool, or the common pool if the operators
+ * run sequentially. The messages are split into a few runs per thread of the pool, and each run keeps one digest
+ * for all of its messages. Each key's padding is built once, in its context, and reused by every message it signed.
+ * Objects are one-use.
+ * @author James Talbott
+ */
+public class Rsa_Batch_Verification_Operator {
+	
+	private static final int runs_per_thread = 4;
+	
+	private final List<Signed_Message> messages;
+	
+	private final boolean[] results;
+	
+	private final long nanos;
+	
+	/**
+	 * A message, its signature and the public key of its claimed signer.
+	 */
+	public static class Signed_Message {
+		
+		private final Rsa_Public_Key signerKey;
+		
+		private final byte[] message;
+		
+		private final String signature;
+		
+		public Signed_Message(Rsa_Public_Key signerKey, byte[] message, String signature) {
+			this.signerKey = signerKey;
+			this.message = message;
+			this.signature = signature;
+		}
+		
+		public Rsa_Public_Key getSignerKey() {
+			return signerKey;
+		}
+		
+		public byte[] getMessage() {
+			return message;
+		}
+		
+		public String getSignature() {
+			return signature;
+		}
+	}
+	
+	/**
+	 * @param messages The messages to verify.
+	 */
+	public Rsa_Batch_Verification_Operator(List<Signed_Message> messages) {
+		long start = System.nanoTime();
+		this.messages = new ArrayList<Signed_Message>(messages);
+		this.results = new boolean[this.messages.size()];
+		verify_all();
+		this.nanos = System.nanoTime() - start;
+	}
+	
+	private void verify_all() {
+		ForkJoinPool pool = Rsa_Operator.getParallelExecution().getPool();
+		if (pool == null) {
+			pool = ForkJoinPool.commonPool();
+		}
+		int runs = Math.max(1, Math.min(messages.size(), pool.getParallelism() * runs_per_thread));
+		List<CompletableFuture<Void>> pending = new ArrayList<CompletableFuture<Void>>();
+		for (int run = 0; run < runs; run++) {
+			int from = (int) ((long) messages.size() * run / runs);
+			int to = (int) ((long) messages.size() * (run + 1) / runs);
+			pending.add(CompletableFuture.runAsync(() -> verify_run(from, to), pool));
+		}
+		try {
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+		} catch (CompletionException ce) {
+			if (ce.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ce.getCause();
+			}
+			throw ce;
+		}
+	}
+	
+	private void verify_run(int from, int to) {
+		MessageDigest digest = Signature_Padding.new_digest();
+		for (int index = from; index < to; index++) {
+			Signed_Message message = messages.get(index);
+			results[index] = new Rsa_Verification_Operator(message.getSignerKey(), message.getMessage(),
+					message.getSignature(), digest).isValid();
+		}
+	}
+	
+	/**
+	 * @return Whether each message's signature is valid, in the order the messages were given.
+	 */
+	public boolean[] getResults() {
+		return results.clone();
+	}
+	
+	public int getValidCount() {
+		int valid = 0;
+		for (boolean result : results) {
+			if (result) {
+				valid++;
+			}
+		}
+		return valid;
+	}
+	
+	/**
+	 * @return The number of valid signatures, the time taken and the rate achieved.
+	 */
+	public String getThroughputReport() {
+		double seconds = nanos / 1e9;
+		return String.format("Verified %d signatures, %d valid, in %.1f ms: %.0f verifications/s.",
+				results.length, getValidCount(), nanos / 1e6, results.length / seconds);
+	}
+}
@@ -0,0 +1,139 @@
+package rsa_module;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import rsa_module.data_structures.Cipher_Container_Header;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.utility.Byte_Block_Packer;
+
+/**
+ * Decrypts a binary ciphertext container through a memory-mapped FileChannel. 
+ * Any range of blocks can be decrypted on its own, without reading the rest of the file.
+ * Must be closed after use.
+ * @author James Talbott
+ */
+public class Rsa_Container_Decryption_Operator extends Rsa_Operator implements Closeable {
+	
+	private Rsa_Private_Key privateKey;
+	
+	private FileChannel channel;
+	
+	private Cipher_Container_Header header;
+	
+	private int blockSize;
+	
+	/**
+	 * Opens a container and reads its header.
+	 * @param privateKey The private key of the recipient.
+	 * @param container The path of the container.
+	 * @throws IOException If the file cannot be read.
+	 * @throws IllegalArgumentException If the file is not a container or was encrypted for another key.
+	 */
+	public Rsa_Container_Decryption_Operator(Rsa_Private_Key privateKey, Path container) throws IOException {
+		this.privateKey = privateKey;
+		this.channel = FileChannel.open(container, StandardOpenOption.READ);
+		try {
+			this.header = read_header();
+			check_header_matches_key();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		this.blockSize = privateKey.getContext().getPackedBlockSize();
+	}
+	
+	private Cipher_Container_Header read_header() throws IOException {
+		if (channel.size() < Cipher_Container_Header.fixed_length) {
+			throw new IllegalArgumentException("File is too short to be a ciphertext container.");
+		}
+		MappedByteBuffer fixedPart = channel.map(FileChannel.MapMode.READ_ONLY, 0, Cipher_Container_Header.fixed_length);
+		int headerLength = Cipher_Container_Header.read_length(fixedPart);
+		return Cipher_Container_Header.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, headerLength));
+	}
+	
+	private void check_header_matches_key() throws IOException {
+		if (header.getKeyID() != privateKey.getContext().getFingerprint()) {
+			throw new IllegalArgumentException("Ciphertext container was encrypted for a different key.");
+		}
+		if (header.getBlockSize() != privateKey.getContext().getCipherBlockSize()
+				|| header.getEncoding() != Cipher_Container_Header.packed_bytes_encoding) {
+			throw new IllegalArgumentException("Ciphertext container layout does not match the key.");
+		}
+		if (channel.size() < header.getLength() + header.getBlockCount() * header.getBlockSize()) {
+			throw new IllegalArgumentException("Ciphertext container is truncated.");
+		}
+	}
+	
+	public Cipher_Container_Header getHeader() {
+		return header;
+	}
+	
+	public long getBlockCount() {
+		return header.getBlockCount();
+	}
+	
+	/**
+	 * Decrypts a range of blocks. If the range includes the final block, its padding is removed.
+	 * Note that a UTF-8 character may be split across the edges of a range.
+	 * @param firstBlock The index of the first block to decrypt.
+	 * @param count The number of blocks to decrypt.
+	 * @return The plaintext bytes of those blocks.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public byte[] decryptBlocks(long firstBlock, int count) throws IOException {
+		if (firstBlock < 0 || count < 0 || firstBlock + count > header.getBlockCount()) {
+			throw new IndexOutOfBoundsException("Block range " + firstBlock + "+" + count + " is outside the container.");
+		}
+		BigInteger[] numericUnits = read_blocks(firstBlock, count);
+		exponentiate_units(numericUnits, count, privateKey);
+		byte[] plainText = new byte[count * blockSize];
+		for (int index = 0; index < count; index++) {
+			Byte_Block_Packer.write_block(numericUnits[index], plainText, index * blockSize, blockSize);
+		}
+		if (count > 0 && firstBlock + count == header.getBlockCount()) {
+			return Arrays.copyOf(plainText, Byte_Block_Packer.unpadded_length(plainText, plainText.length));
+		}
+		return plainText;
+	}
+	
+	private BigInteger[] read_blocks(long firstBlock, int count) throws IOException {
+		int cipherBlockSize = header.getBlockSize();
+		long offset = header.getLength() + firstBlock * cipherBlockSize;
+		MappedByteBuffer blocks = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) count * cipherBlockSize);
+		BigInteger[] numericUnits = new BigInteger[count];
+		byte[] cipherUnit = new byte[cipherBlockSize];
+		for (int index = 0; index < count; index++) {
+			blocks.get(cipherUnit);
+			numericUnits[index] = new BigInteger(1, cipherUnit);
+		}
+		return numericUnits;
+	}
+	
+	/**
+	 * Decrypts every block in order, one window at a time, writing the plaintext to the output.
+	 * @param plainText Receives the plaintext bytes. It is not closed.
+	 * @throws IOException If reading or writing fails.
+	 */
+	public void decrypt(OutputStream plainText) throws IOException {
+		long blockCount = header.getBlockCount();
+		for (long firstBlock = 0; firstBlock < blockCount; firstBlock += Rsa_Stream_Encryption_Operator.units_per_window) {
+			int count = (int) Math.min(Rsa_Stream_Encryption_Operator.units_per_window, blockCount - firstBlock);
+			plainText.write(decryptBlocks(firstBlock, count));
+		}
+		Instrumentation.count_decryption(header.getLength() + blockCount * header.getBlockSize());
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,67 @@
+package rsa_module;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import rsa_module.data_structures.Cipher_Container_Header;
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.utility.Byte_Block_Packer;
+
+/**
+ * Encrypts a plaintext stream into a binary ciphertext container, as described by Cipher_Container_Header.
+ * Units are packed the same way as for the text ciphertext, but each encrypted unit is stored as fixed-width
+ * big-endian bytes instead of decimal digits, which is about 2.4 times smaller.
+ * @author James Talbott
+ */
+public class Rsa_Container_Encryption_Operator extends Rsa_Stream_Encryption_Operator {
+	
+	private Rsa_Public_Key publicKey;
+	
+	public Rsa_Container_Encryption_Operator(Rsa_Public_Key publicKey) {
+		super(publicKey, publicKey.getContext().getCipherBlockSize());
+		this.publicKey = publicKey;
+	}
+	
+	/**
+	 * Encrypts everything remaining in the input into a new container file, replacing any existing file.
+	 * @param plainText The plaintext bytes, expected to be UTF-8.
+	 * @param container The path of the container to write.
+	 * @param outgoingKey A public key to store in the header for the recipient to reply with, or null.
+	 * @throws IOException If reading or writing fails.
+	 */
+	public void encrypt(InputStream plainText, Path container, Rsa_Public_Key outgoingKey) throws IOException {
+		String appendedKey = outgoingKey == null ? "" : outgoingKey.toString();
+		Cipher_Container_Header header = new Cipher_Container_Header(publicKey.getContext().getFingerprint(),
+				publicKey.getContext().getCipherBlockSize(), 0, appendedKey);
+		try (FileChannel channel = FileChannel.open(container, StandardOpenOption.CREATE, 
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream cipherText = new BufferedOutputStream(Channels.newOutputStream(channel));
+			byte[] headerBytes = header.toByteBuffer().array();
+			cipherText.write(headerBytes);
+			long blockCount = encrypt_units(plainText, cipherText);
+			cipherText.flush();
+			ByteBuffer blockCountField = ByteBuffer.allocate(Long.BYTES).putLong(blockCount);
+			blockCountField.flip();
+			channel.write(blockCountField, Cipher_Container_Header.getBlockCountOffset());
+			Instrumentation.count_encryption(headerBytes.length + blockCount * header.getBlockSize());
+		}
+	}
+	
+	/**
+	 * Writes one encrypted unit as fixed-width big-endian bytes.
+	 */
+	@Override
+	protected void write_unit(BigInteger unit, byte[] cipherUnit, OutputStream cipherText) throws IOException {
+		Byte_Block_Packer.write_block(unit, cipherUnit, 0, cipherUnit.length);
+		cipherText.write(cipherUnit);
+	}
+}
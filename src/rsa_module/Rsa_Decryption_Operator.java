@@ -1,8 +1,21 @@
 package rsa_module;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
-import rsa_module.data_structures.Rsa_Key;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.instrumentation.Stage;
+import rsa_module.instrumentation.Stage_Event;
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Byte_Compressor;
+import rsa_module.utility.Decimal_Codec;
 
 /**
  * Helper class for RsaModule to generate plaintext given ciphertext and keys.
@@ -12,81 +25,190 @@ import rsa_module.data_structures.Rsa_Key;
  */
 public class Rsa_Decryption_Operator extends Rsa_Operator {
 	
-	private Rsa_Key privateKey;
+	private static volatile Decrypted_Block_Cache block_cache = null;
+	
+	private static volatile int maximum_inflated_length = Byte_Compressor.default_maximum_inflated_length;
+	
+	private Rsa_Private_Key privateKey;
 	
 	private String plainText;
 	
 	private String cipherText;
 	
-	public Rsa_Decryption_Operator(Rsa_Key privateKey, String cipherText) {
+	private final Decimal_Codec codec = new Decimal_Codec();
+	
+	public Rsa_Decryption_Operator(Rsa_Private_Key privateKey, String cipherText) {
 		this.privateKey = privateKey;
-		this.cipherText = cipherText;
-		this.plainText = convertNumericTextToPlainText(decryptCipherTextintoNumericText());
+		if (Text_Encoding.of(cipherText) == Text_Encoding.HYBRID_AES_GCM) {
+			this.cipherText = cipherText;
+			this.plainText = decryptHybrid();
+		} else if (Text_Encoding.of(cipherText) == Text_Encoding.PACKED_BYTES) {
+			this.cipherText = cipherText.substring(Text_Encoding.PACKED_BYTES.getMarker().length());
+			this.plainText = decryptPackedBytes();
+		} else if (Text_Encoding.of(cipherText) == Text_Encoding.DEFLATED_BYTES) {
+			this.cipherText = cipherText.substring(Text_Encoding.DEFLATED_BYTES.getMarker().length());
+			this.plainText = decryptDeflatedBytes();
+		} else {
+			this.cipherText = cipherText;
+			this.plainText = decryptDecimalCharacters();
+		}
+		if (Text_Encoding.of(cipherText) != Text_Encoding.HYBRID_AES_GCM) {
+			//Rsa_Hybrid_Decryption_Operator has already counted the message.
+			Instrumentation.count_decryption(cipherText.length());
+		}
+	}
+	
+	/**
+	 * Sets the cache all decryption operators share from now on, or null, the default, to decrypt every block.
+	 * @param cache The cache to use.
+	 */
+	public static void setBlockCache(Decrypted_Block_Cache cache) {
+		block_cache = cache;
+	}
+	
+	public static Decrypted_Block_Cache getBlockCache() {
+		return block_cache;
+	}
+	
+	/**
+	 * Sets the most bytes that compressed ciphertext may inflate to before decryption is refused with an
+	 * IllegalArgumentException. 64 MiB by default.
+	 * @param length The limit in bytes.
+	 */
+	public static void setMaximumInflatedLength(int length) {
+		if (length < 1) {
+			throw new IllegalArgumentException("Inflated length limit must be at least one byte.");
+		}
+		maximum_inflated_length = length;
+	}
+	
+	public static int getMaximumInflatedLength() {
+		return maximum_inflated_length;
 	}
 	
 	public String getPlainText() {
 		return plainText;
 	}
 	
-	private String decryptCipherTextintoNumericText() {
-		int cipherUnitLength = privateKey.getModulus().toString().length();
-		String[] cipherUnits = break_text_into_units(cipherText, cipherUnitLength);
-		String[] numericUnits = decryptCipherUnits(cipherUnits);
-		numericUnits = fillOutDecipheredUnitsToConstantLength(numericUnits, cipherUnitLength - 1);//We used length - 1 during encryption to ensure the units were less than the modulus.
-		String numericText = concatenate_units_into_text(numericUnits);
-		return numericText;
+	private String decryptPackedBytes() {
+		return utf8_plain_text(decrypt_bytes());
+	}
+	
+	private String decryptDeflatedBytes() {
+		return utf8_plain_text(Byte_Compressor.inflate(decrypt_bytes(), maximum_inflated_length));
+	}
+	
+	private byte[] decrypt_bytes() {
+		int cipherUnitLength = privateKey.getContext().getCipherUnitLength();
+		int blockSize = privateKey.getContext().getPackedBlockSize();
+		byte[] digits = cipherText.getBytes(StandardCharsets.ISO_8859_1);
+		BigInteger[] blocks = parse_units(digits, 0, digits.length, cipherUnitLength, codec);
+		decrypt_units(blocks);
+		Stage_Event event = Instrumentation.begin(Stage.CONCATENATION);
+		byte[] plainBytes = Byte_Block_Packer.unpack(blocks, blockSize);
+		Instrumentation.end(event, blocks.length, plainBytes.length);
+		return plainBytes;
 	}
 	
-	private String[] decryptCipherUnits(String[] cipherUnits) {
-		BigInteger encryptedChar, decryptedChar;
-		String[] decryptedUnits = new String[cipherUnits.length];
-		for (int index = 0; index < cipherUnits.length; index++) {
-			encryptedChar = new BigInteger(cipherUnits[index]);
-			decryptedChar = encryptedChar.modPow(privateKey.getExponent(), privateKey.getModulus());
-			decryptedUnits[index] = decryptedChar.toString();
+	private String utf8_plain_text(byte[] plainBytes) {
+		Stage_Event event = Instrumentation.begin(Stage.TEXT_CONVERSION);
+		String decrypted = new String(plainBytes, StandardCharsets.UTF_8);
+		Instrumentation.end(event, decrypted.length(), plainBytes.length);
+		return decrypted;
+	}
+	
+	private String decryptHybrid() {
+		ByteArrayOutputStream plainBytes = new ByteArrayOutputStream();
+		try {
+			new Rsa_Hybrid_Decryption_Operator(privateKey).decrypt(
+					new ByteArrayInputStream(cipherText.getBytes(StandardCharsets.ISO_8859_1)), plainBytes);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
 		}
-		return decryptedUnits;
+		return new String(plainBytes.toByteArray(), StandardCharsets.UTF_8);
 	}
 	
-	protected String[] fillOutDecipheredUnitsToConstantLength(String[] numericUnits, int cipherUnitsLength) {
-		int lastUnitIndex = numericUnits.length - 1;
-		int lastUnitLength = numericUnits[lastUnitIndex].length();
-		numericUnits = fill_out_units_to_constant_length(numericUnits, cipherUnitsLength);
-		numericUnits[lastUnitIndex] = adjustLastUnitLength(numericUnits, cipherUnitsLength, lastUnitLength);
-		for (int j = 0; j < numericUnits.length; j++) {
+	private String decryptDecimalCharacters() {
+		int cipherUnitLength = privateKey.getContext().getCipherUnitLength();
+		byte[] digits = cipherText.getBytes(StandardCharsets.ISO_8859_1);
+		BigInteger[] numericUnits = parse_units(digits, 0, digits.length, cipherUnitLength, codec);
+		if (numericUnits.length == 0) {
+			return "";
 		}
-		return numericUnits;
+		decrypt_units(numericUnits);
+		Stage_Event event = Instrumentation.begin(Stage.PADDING);
+		byte[] numericText = new byte[numericUnits.length * cipherUnitLength];
+		int numericTextLength = write_numeric_units(numericUnits, cipherUnitLength - 1, numericText);//We used length - 1 during encryption to ensure the units were less than the modulus.
+		Instrumentation.end(event, numericUnits.length, numericTextLength);
+		event = Instrumentation.begin(Stage.TEXT_CONVERSION);
+		char[] characters = Decimal_Codec.read_characters(numericText, numericTextLength);
+		Instrumentation.end(event, characters.length, numericTextLength);
+		return new String(characters);
 	}
 	
-	private String adjustLastUnitLength(String[] numericUnits, int normalUnitLength, int lastUnitLength) {
-		String lastUnit = numericUnits[numericUnits.length - 1];
-		int totalLength = (numericUnits.length - 1) * normalUnitLength + lastUnitLength;
-		int targetLength = getTargetLengthOfLastUnit(totalLength, lastUnitLength);
-		return lastUnit.substring(lastUnit.length() - targetLength);
+	/**
+	 * Decrypts units in place, taking any the block cache holds from it and exponentiating only the rest.
+	 * A unit repeated within the message is exponentiated once.
+	 */
+	private void decrypt_units(BigInteger[] units) {
+		Decrypted_Block_Cache cache = block_cache;
+		if (cache == null) {
+			exponentiate_units(units, units.length, privateKey);
+			return;
+		}
+		long fingerprint = privateKey.getContext().getFingerprint();
+		Map<BigInteger, Integer> missPositions = new HashMap<BigInteger, Integer>();
+		BigInteger[] misses = new BigInteger[units.length];
+		int[] missIndices = new int[units.length];
+		int missCount = 0;
+		for (int index = 0; index < units.length; index++) {
+			BigInteger cached = cache.get(fingerprint, units[index]);
+			if (cached != null) {
+				units[index] = cached;
+			} else {
+				if (! missPositions.containsKey(units[index])) {
+					missPositions.put(units[index], missPositions.size());
+					misses[missPositions.size() - 1] = units[index];
+				}
+				missIndices[missCount++] = index;
+			}
+		}
+		BigInteger[] decrypted = misses.clone();
+		exponentiate_units(decrypted, missPositions.size(), privateKey);
+		for (int position = 0; position < missPositions.size(); position++) {
+			cache.put(fingerprint, misses[position], decrypted[position]);
+		}
+		for (int miss = 0; miss < missCount; miss++) {
+			int index = missIndices[miss];
+			units[index] = decrypted[missPositions.get(units[index])];
+		}
+	}
+	
+	/**
+	 * Writes the decrypted units zero-padded to the encryption unit length, except the last unit, which was
+	 * encrypted without padding. It is padded only enough to complete the final character.
+	 * @return The number of digits written.
+	 */
+	private int write_numeric_units(BigInteger[] numericUnits, int unitLength, byte[] numericText) {
+		int lastUnitIndex = numericUnits.length - 1;
+		int position = 0;
+		for (int index = 0; index < lastUnitIndex; index++) {
+			position += codec.write(numericUnits[index], unitLength, numericText, position);
+		}
+		int lastUnitLength = codec.format(numericUnits[lastUnitIndex]);
+		int targetLength = getTargetLengthOfLastUnit(lastUnitIndex * unitLength + lastUnitLength, lastUnitLength);
+		if (targetLength > Math.max(unitLength, lastUnitLength)) {
+			throw new IllegalArgumentException("Ciphertext does not decrypt to whole characters.");
+		}
+		return position + codec.write_formatted(targetLength, numericText, position);
 	}
 	
 	private int getTargetLengthOfLastUnit(int totalLength, int lastUnitLength) {
 		int targetLength = lastUnitLength;
-		while (totalLength % length_of_numeric_characters != 0) {
+		while (totalLength % Decimal_Codec.digits_per_character != 0) {
 			targetLength++;
 			totalLength++;
 		}
 		return targetLength;
 	}
-	
-	private String convertNumericTextToPlainText(String numericText) {
-		String[] numericUnits = break_text_into_units(numericText, length_of_numeric_characters);
-		char[] plainUnits = convertNumericCharactersToPlainCharacters(numericUnits);
-		return new String(plainUnits);
-	}
-	
-	private char[] convertNumericCharactersToPlainCharacters(String[] numericUnits) {
-		char[] plainUnits = new char[numericUnits.length];
-		Integer numericCharacter;
-		for (int index = 0; index < numericUnits.length; index++) {
-			numericCharacter = Integer.valueOf((numericUnits[index]));
-			plainUnits[index] = ((char) numericCharacter.intValue());
-		}
-		return plainUnits;
-	}
 }
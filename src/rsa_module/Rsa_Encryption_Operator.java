@@ -1,8 +1,19 @@
 package rsa_module;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 
 import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.instrumentation.Stage;
+import rsa_module.instrumentation.Stage_Event;
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Byte_Compressor;
+import rsa_module.utility.Decimal_Codec;
 
 /**
  * Helper class for RsaModule to generate ciphertext given plaintext and keys.
@@ -11,77 +22,133 @@ import rsa_module.data_structures.Rsa_Public_Key;
  * @author James Talbott
  */
 public class Rsa_Encryption_Operator extends Rsa_Operator{
-
+	
 	private Rsa_Public_Key publicKey;
-
+	
 	private String plainText;
-
+	
 	private String cipherText;
 	
-
+	private Text_Encoding encoding;
+	
+	private final Decimal_Codec codec = new Decimal_Codec();
+	
+	/**
+	 * Encrypts with the packed byte encoding.
+	 * @param publicKey The recipient's public key.
+	 * @param plainText The text to encrypt.
+	 */
 	public Rsa_Encryption_Operator(Rsa_Public_Key publicKey, String plainText) {
+		this(publicKey, plainText, Text_Encoding.PACKED_BYTES);
+	}
+	
+	/**
+	 * @param publicKey The recipient's public key.
+	 * @param plainText The text to encrypt.
+	 * @param encoding The encoding to use. DEFLATED_BYTES is only a request: text that does not compress is
+	 * encrypted as PACKED_BYTES instead, which getEncoding reports.
+	 */
+	public Rsa_Encryption_Operator(Rsa_Public_Key publicKey, String plainText, Text_Encoding encoding) {
 		this.publicKey = publicKey;
 		this.plainText = plainText;
-		this.cipherText = encryptNumericText(convertPlainTextToNumericText());
+		this.encoding = encoding;
+		if (encoding == Text_Encoding.PACKED_BYTES) {
+			this.cipherText = encryptPackedBytes();
+		} else if (encoding == Text_Encoding.DEFLATED_BYTES) {
+			this.cipherText = encryptDeflatedBytes();
+		} else if (encoding == Text_Encoding.HYBRID_AES_GCM) {
+			this.cipherText = encryptHybrid();
+		} else {
+			this.cipherText = encryptDecimalCharacters();
+		}
+		if (encoding != Text_Encoding.HYBRID_AES_GCM) {
+			//Rsa_Hybrid_Encryption_Operator has already counted the message.
+			Instrumentation.count_encryption(cipherText.length());
+		}
+	}
+	
+	/**
+	 * Encrypts bytes already converted from text, and already compressed for DEFLATED_BYTES, so that a message
+	 * can be converted once and encrypted for many keys.
+	 * @param publicKey The recipient's public key.
+	 * @param encodedBytes The UTF-8 plaintext, or its deflated form.
+	 * @param encoding PACKED_BYTES or DEFLATED_BYTES, matching the bytes.
+	 */
+	Rsa_Encryption_Operator(Rsa_Public_Key publicKey, byte[] encodedBytes, Text_Encoding encoding) {
+		this.publicKey = publicKey;
+		this.encoding = encoding;
+		this.cipherText = encrypt_bytes(encodedBytes, encoding);
+		Instrumentation.count_encryption(cipherText.length());
 	}
 	
 	public String getCipherText() {
 		return cipherText;
 	}
 	
-	private String convertPlainTextToNumericText() {
-		String[] numericCharacters = convertPlainCharactersToNumericCharacters(plainText);
-		int maximumNumericUnitLength = length_of_numeric_characters;
-		numericCharacters = fill_out_units_to_constant_length(numericCharacters, maximumNumericUnitLength);
-		return concatenate_units_into_text(numericCharacters);
+	/**
+	 * @return The encoding the ciphertext was actually written in.
+	 */
+	public Text_Encoding getEncoding() {
+		return encoding;
 	}
 	
-	private String[] convertPlainCharactersToNumericCharacters(String plainText) {
-		String[] numericCharacters = new String[plainText.length()];
-		for (int index = 0; index < plainText.length(); index++) {
-			numericCharacters[index] = convertCharToNumber(plainText.charAt(index));
-		}
-		return numericCharacters;
+	/**
+	 * Writes every character as four decimal digits and splits the digits into units one digit shorter than
+	 * the modulus, which keeps each unit smaller than the modulus.
+	 */
+	private String encryptDecimalCharacters() {
+		int lengthOfCipherUnits = publicKey.getContext().getCipherUnitLength();
+		Stage_Event event = Instrumentation.begin(Stage.TEXT_CONVERSION);
+		byte[] numericText = new byte[Decimal_Codec.numeric_length(plainText)];
+		Decimal_Codec.write_characters(plainText, numericText);
+		Instrumentation.end(event, plainText.length(), numericText.length);
+		BigInteger[] cipherUnits = parse_units(numericText, 0, numericText.length, lengthOfCipherUnits - 1, codec);
+		exponentiate_units(cipherUnits, cipherUnits.length, publicKey);
+		return format_units("", cipherUnits, lengthOfCipherUnits, codec);
 	}
 	
-	private String convertCharToNumber(char character) {
-		return Integer.valueOf((int) character).toString();
+	private String encryptPackedBytes() {
+		return encrypt_bytes(utf8_plain_text(), Text_Encoding.PACKED_BYTES);
 	}
 	
-	private String encryptNumericText(String numericText) {
-		int lengthOfCipherUnits = publicKey.getModulus().toString().length(); 
-		String[] cipherUnits = breakNumericTextIntoCipherUnits(numericText, lengthOfCipherUnits - 1); //Length minus 1 is necessary to ensure that the unit pre-encryption is always smaller than the modulus
-		cipherUnits = encryptCipherUnits(cipherUnits);
-		cipherUnits = fill_out_units_to_constant_length(cipherUnits, lengthOfCipherUnits);
-		cipherText = concatenate_units_into_text(cipherUnits);
-		return cipherText.toString();
+	/**
+	 * Compresses the plaintext bytes, and encrypts them as PACKED_BYTES instead if that did not make them smaller.
+	 */
+	private String encryptDeflatedBytes() {
+		byte[] plainBytes = utf8_plain_text();
+		byte[] compressedBytes = Byte_Compressor.deflate(plainBytes);
+		if (compressedBytes.length >= plainBytes.length) {
+			encoding = Text_Encoding.PACKED_BYTES;
+			return encrypt_bytes(plainBytes, Text_Encoding.PACKED_BYTES);
+		}
+		return encrypt_bytes(compressedBytes, Text_Encoding.DEFLATED_BYTES);
 	}
 	
-	private String[] breakNumericTextIntoCipherUnits(String numericText, int lengthOfCipherUnits) {
-		int numericTextLength = numericText.length();
-		String[] cipherUnits = new String[determineNumberOfCipherUnits(numericText, lengthOfCipherUnits)];
-		for (int index = 0; index < cipherUnits.length; index ++) {
-			cipherUnits[index] = numericText.substring(index * lengthOfCipherUnits, Math.min((index + 1) * lengthOfCipherUnits, numericTextLength));
-		}
-		return cipherUnits;
+	private byte[] utf8_plain_text() {
+		Stage_Event event = Instrumentation.begin(Stage.TEXT_CONVERSION);
+		byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+		Instrumentation.end(event, plainText.length(), plainBytes.length);
+		return plainBytes;
 	}
 	
-	private int determineNumberOfCipherUnits(String numericText, int lengthOfCipherUnits) {
-		int numberOfCipherUnits = numericText.length() / lengthOfCipherUnits;
-		if (numericText.length() % lengthOfCipherUnits > 0) {
-			numberOfCipherUnits++;
-		}
-		return numberOfCipherUnits;
+	private String encrypt_bytes(byte[] bytes, Text_Encoding marker) {
+		int lengthOfCipherUnits = publicKey.getContext().getCipherUnitLength();
+		int blockSize = publicKey.getContext().getPackedBlockSize();
+		Stage_Event event = Instrumentation.begin(Stage.BLOCK_SPLITTING);
+		BigInteger[] blocks = Byte_Block_Packer.pack(bytes, blockSize);
+		Instrumentation.end(event, blocks.length, bytes.length);
+		exponentiate_units(blocks, blocks.length, publicKey);
+		return format_units(marker.getMarker(), blocks, lengthOfCipherUnits, codec);
 	}
 	
-	private String[] encryptCipherUnits(String[] cipherUnits) {
-		BigInteger numericUnit, encryptedUnit;
-		String[] encryptedUnits = new String[cipherUnits.length];
-		for (int index = 0; index < cipherUnits.length; index++) {
-			numericUnit = new BigInteger(cipherUnits[index]);
-			encryptedUnit = numericUnit.modPow(publicKey.getExponent(), publicKey.getModulus());
-			encryptedUnits[index] = encryptedUnit.toString();
+	private String encryptHybrid() {
+		ByteArrayOutputStream cipherBytes = new ByteArrayOutputStream();
+		try {
+			new Rsa_Hybrid_Encryption_Operator(publicKey).encrypt(
+					new ByteArrayInputStream(plainText.getBytes(StandardCharsets.UTF_8)), cipherBytes);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
 		}
-		return encryptedUnits;
+		return new String(cipherBytes.toByteArray(), StandardCharsets.US_ASCII);
 	}
 }
@@ -0,0 +1,175 @@
+package rsa_module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Decimal_Codec;
+
+/**
+ * Decrypts ciphertext written by Rsa_Hybrid_Encryption_Operator: recovers the AES key with the private key, then
+ * opens one segment at a time, so memory use does not grow with the message.
+ * A segment's plaintext is only written once its tag has been verified, but a failure part way through leaves the
+ * segments before it written.
+ * Objects are one-use.
+ * @author James Talbott
+ */
+public class Rsa_Hybrid_Decryption_Operator extends Rsa_Operator {
+	
+	private Rsa_Private_Key privateKey;
+	
+	private final Decimal_Codec codec = new Decimal_Codec();
+	
+	private boolean endOfCipherText = false;
+	
+	private String trailingText = "";
+	
+	private long cipherTextLength = 0;
+	
+	public Rsa_Hybrid_Decryption_Operator(Rsa_Private_Key privateKey) {
+		this.privateKey = privateKey;
+	}
+	
+	/**
+	 * Decrypts the ciphertext line at the start of the input and writes the plaintext bytes to the output.
+	 * Neither stream is closed.
+	 * @param cipherText The ciphertext, starting with the hybrid marker.
+	 * @param plainText Receives the plaintext bytes.
+	 * @return Any text following the ciphertext line, such as an appended public key, or "" if there is none.
+	 * @throws IOException If either stream fails.
+	 * @throws IllegalArgumentException If the ciphertext is malformed, truncated, altered or for another key.
+	 */
+	public String decrypt(InputStream cipherText, OutputStream plainText) throws IOException {
+		read_marker(cipherText);
+		SecretKeySpec aesKey = new SecretKeySpec(unwrap_key(cipherText), "AES");
+		byte[] noncePrefix = decode(read_exactly(cipherText, 4 * ((Rsa_Hybrid_Encryption_Operator.nonce_prefix_length + 2) / 3)));
+		try {
+			decrypt_segments(aesKey, noncePrefix, cipherText, plainText);
+		} catch (AEADBadTagException abte) {
+			throw new IllegalArgumentException("Ciphertext was altered or encrypted for a different key.", abte);
+		} catch (GeneralSecurityException gse) {
+			throw new IllegalStateException("AES-GCM is not available.", gse);
+		}
+		Instrumentation.count_decryption(cipherTextLength);
+		return trailingText.trim();
+	}
+	
+	private void read_marker(InputStream cipherText) throws IOException {
+		byte[] expected = Text_Encoding.HYBRID_AES_GCM.getMarker().getBytes(StandardCharsets.US_ASCII);
+		if (! Arrays.equals(cipherText.readNBytes(expected.length), expected)) {
+			throw new IllegalArgumentException("Hybrid decryption requires hybrid ciphertext.");
+		}
+		cipherTextLength += expected.length;
+	}
+	
+	private byte[] unwrap_key(InputStream cipherText) throws IOException {
+		int cipherUnitLength = privateKey.getContext().getCipherUnitLength();
+		int blockSize = privateKey.getContext().getPackedBlockSize();
+		int units = Rsa_Hybrid_Encryption_Operator.wrapped_key_units(blockSize);
+		byte[] wrappedKey = read_exactly(cipherText, units * cipherUnitLength);
+		BigInteger[] keyUnits = parse_units(wrappedKey, 0, wrappedKey.length, cipherUnitLength, codec);
+		exponentiate_units(keyUnits, keyUnits.length, privateKey);
+		byte[] aesKey = Byte_Block_Packer.unpack(keyUnits, blockSize);
+		if (aesKey.length != Rsa_Hybrid_Encryption_Operator.aes_key_length) {
+			throw new IllegalArgumentException("Ciphertext was encrypted for a different key.");
+		}
+		return aesKey;
+	}
+	
+	private byte[] read_exactly(InputStream cipherText, int length) throws IOException {
+		byte[] bytes = cipherText.readNBytes(length);
+		if (bytes.length < length) {
+			throw new IllegalArgumentException("Ciphertext is truncated.");
+		}
+		cipherTextLength += length;
+		return bytes;
+	}
+	
+	/**
+	 * Reads one segment ahead, so that the last segment can be opened as the final one.
+	 */
+	private void decrypt_segments(SecretKeySpec aesKey, byte[] noncePrefix, InputStream cipherText, OutputStream plainText)
+			throws IOException, GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(Rsa_Hybrid_Encryption_Operator.cipher_algorithm);
+		int encodedLength = Rsa_Hybrid_Encryption_Operator.encoded_segment_length();
+		byte[] segment = new byte[encodedLength];
+		byte[] nextSegment = new byte[encodedLength];
+		byte[] opened = new byte[Rsa_Hybrid_Encryption_Operator.segment_length + Rsa_Hybrid_Encryption_Operator.tag_length];
+		int segmentIndex = 0;
+		int length = read_segment(cipherText, segment);
+		while (! endOfCipherText) {
+			int nextLength = read_segment(cipherText, nextSegment);
+			if (nextLength == 0) {
+				break;
+			}
+			open_segment(cipher, aesKey, noncePrefix, segmentIndex++, false, segment, length, opened, plainText);
+			byte[] swap = segment;
+			segment = nextSegment;
+			nextSegment = swap;
+			length = nextLength;
+		}
+		open_segment(cipher, aesKey, noncePrefix, segmentIndex, true, segment, length, opened, plainText);
+	}
+	
+	/**
+	 * Reads up to one encoded segment. If the ciphertext line ends within it, whatever follows is kept as trailing text.
+	 * @return The number of Base64 characters read.
+	 */
+	private int read_segment(InputStream cipherText, byte[] segment) throws IOException {
+		int bytesRead = cipherText.readNBytes(segment, 0, segment.length);
+		int length = 0;
+		while (length < bytesRead && is_base64(segment[length])) {
+			length++;
+		}
+		if (length < segment.length) {
+			endOfCipherText = true;
+			trailingText = new String(segment, length, bytesRead - length, StandardCharsets.UTF_8)
+					+ new String(cipherText.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		cipherTextLength += length;
+		return length;
+	}
+	
+	private boolean is_base64(byte character) {
+		return (character >= 'A' && character <= 'Z') || (character >= 'a' && character <= 'z')
+				|| (character >= '0' && character <= '9') || character == '+' || character == '/' || character == '=';
+	}
+	
+	private void open_segment(Cipher cipher, SecretKeySpec aesKey, byte[] noncePrefix, int segmentIndex, boolean finalSegment,
+			byte[] segment, int length, byte[] opened, OutputStream plainText) throws IOException, GeneralSecurityException {
+		ByteBuffer sealed = decode(segment, length);
+		if (sealed.remaining() < Rsa_Hybrid_Encryption_Operator.tag_length) {
+			throw new IllegalArgumentException("Ciphertext is truncated.");
+		}
+		cipher.init(Cipher.DECRYPT_MODE, aesKey, Rsa_Hybrid_Encryption_Operator.segment_parameters(noncePrefix, segmentIndex));
+		cipher.updateAAD(Rsa_Hybrid_Encryption_Operator.segment_aad(finalSegment));
+		int openedLength = cipher.doFinal(sealed.array(), sealed.arrayOffset(), sealed.remaining(), opened, 0);
+		plainText.write(opened, 0, openedLength);
+	}
+	
+	private ByteBuffer decode(byte[] encoded, int length) {
+		try {
+			return Base64.getDecoder().decode(ByteBuffer.wrap(encoded, 0, length));
+		} catch (IllegalArgumentException iae) {
+			throw new IllegalArgumentException("Ciphertext segment is not valid Base64.", iae);
+		}
+	}
+	
+	private byte[] decode(byte[] encoded) {
+		ByteBuffer decoded = decode(encoded, encoded.length);
+		return Arrays.copyOfRange(decoded.array(), decoded.arrayOffset(), decoded.arrayOffset() + decoded.remaining());
+	}
+}
@@ -0,0 +1,153 @@
+package rsa_module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Decimal_Codec;
+
+/**
+ * Encrypts bulk plaintext with AES-GCM under a fresh random key, and RSA encrypts only that key for the recipient,
+ * so the cost of RSA no longer grows with the message.
+ * The ciphertext is a single ASCII line: the HYBRID_AES_GCM marker; the AES key packed as in PACKED_BYTES and
+ * encrypted into zero-padded decimal cipher units; a random 8 byte nonce prefix in Base64; then the plaintext in
+ * segments of 64 KiB, each sealed on its own and Base64 encoded. A segment's nonce is the prefix followed by its
+ * index, and a flag marking the final segment is authenticated with it, so segments cannot be reordered, dropped
+ * or truncated unnoticed. Segments let decryption stream with bounded memory.
+ * Objects are one-use.
+ * @author James Talbott
+ */
+public class Rsa_Hybrid_Encryption_Operator extends Rsa_Operator {
+	
+	protected static final int aes_key_length = 32;
+	
+	protected static final int nonce_prefix_length = 8;
+	
+	protected static final int segment_length = 64 * 1024;
+	
+	protected static final int tag_length = 16;
+	
+	protected static final String cipher_algorithm = "AES/GCM/NoPadding";
+	
+	private static final SecureRandom random = new SecureRandom();
+	
+	private Rsa_Public_Key publicKey;
+	
+	private final Decimal_Codec codec = new Decimal_Codec();
+	
+	private long cipherTextLength = 0;
+	
+	public Rsa_Hybrid_Encryption_Operator(Rsa_Public_Key publicKey) {
+		this.publicKey = publicKey;
+	}
+	
+	/**
+	 * Encrypts everything remaining in the input and writes the ciphertext line to the output.
+	 * Neither stream is closed, so that callers may append further lines such as an outgoing key.
+	 * @param plainText The plaintext bytes.
+	 * @param cipherText Receives the ciphertext as ASCII.
+	 * @throws IOException If either stream fails.
+	 */
+	public void encrypt(InputStream plainText, OutputStream cipherText) throws IOException {
+		byte[] aesKey = new byte[aes_key_length];
+		byte[] noncePrefix = new byte[nonce_prefix_length];
+		random.nextBytes(aesKey);
+		random.nextBytes(noncePrefix);
+		write_counted(Text_Encoding.HYBRID_AES_GCM.getMarker().getBytes(StandardCharsets.US_ASCII), cipherText);
+		write_counted(wrap_key(aesKey), cipherText);
+		write_counted(Base64.getEncoder().encode(noncePrefix), cipherText);
+		try {
+			encrypt_segments(new SecretKeySpec(aesKey, "AES"), noncePrefix, plainText, cipherText);
+		} catch (GeneralSecurityException gse) {
+			throw new IllegalStateException("AES-GCM is not available.", gse);
+		}
+		Instrumentation.count_encryption(cipherTextLength);
+	}
+	
+	private void write_counted(byte[] bytes, OutputStream cipherText) throws IOException {
+		cipherText.write(bytes);
+		cipherTextLength += bytes.length;
+	}
+	
+	private byte[] wrap_key(byte[] aesKey) {
+		int cipherUnitLength = publicKey.getContext().getCipherUnitLength();
+		BigInteger[] units = Byte_Block_Packer.pack(aesKey, publicKey.getContext().getPackedBlockSize());
+		exponentiate_units(units, units.length, publicKey);
+		byte[] wrappedKey = new byte[units.length * cipherUnitLength];
+		for (int index = 0; index < units.length; index++) {
+			codec.write(units[index], cipherUnitLength, wrappedKey, index * cipherUnitLength);
+		}
+		return wrappedKey;
+	}
+	
+	/**
+	 * Reads one segment ahead, so that the last segment is known to be final when it is sealed.
+	 */
+	private void encrypt_segments(SecretKeySpec aesKey, byte[] noncePrefix, InputStream plainText, OutputStream cipherText)
+			throws IOException, GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(cipher_algorithm);
+		byte[] segment = new byte[segment_length];
+		byte[] nextSegment = new byte[segment_length];
+		byte[] sealed = new byte[segment_length + tag_length];
+		int segmentIndex = 0;
+		int length = plainText.readNBytes(segment, 0, segment_length);
+		while (length == segment_length) {
+			int nextLength = plainText.readNBytes(nextSegment, 0, segment_length);
+			if (nextLength == 0) {
+				break;
+			}
+			write_segment(cipher, aesKey, noncePrefix, segmentIndex++, false, segment, length, sealed, cipherText);
+			byte[] swap = segment;
+			segment = nextSegment;
+			nextSegment = swap;
+			length = nextLength;
+		}
+		write_segment(cipher, aesKey, noncePrefix, segmentIndex, true, segment, length, sealed, cipherText);
+	}
+	
+	private void write_segment(Cipher cipher, SecretKeySpec aesKey, byte[] noncePrefix, int segmentIndex, boolean finalSegment,
+			byte[] segment, int length, byte[] sealed, OutputStream cipherText) throws IOException, GeneralSecurityException {
+		cipher.init(Cipher.ENCRYPT_MODE, aesKey, segment_parameters(noncePrefix, segmentIndex));
+		cipher.updateAAD(segment_aad(finalSegment));
+		int sealedLength = cipher.doFinal(segment, 0, length, sealed, 0);
+		ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(sealed, 0, sealedLength));
+		cipherText.write(encoded.array(), encoded.arrayOffset(), encoded.remaining());
+		cipherTextLength += encoded.remaining();
+	}
+	
+	protected static GCMParameterSpec segment_parameters(byte[] noncePrefix, int segmentIndex) {
+		byte[] nonce = ByteBuffer.allocate(nonce_prefix_length + 4).put(noncePrefix).putInt(segmentIndex).array();
+		return new GCMParameterSpec(tag_length * 8, nonce);
+	}
+	
+	protected static byte[] segment_aad(boolean finalSegment) {
+		return new byte[] {(byte) (finalSegment ? 1 : 0)};
+	}
+	
+	/**
+	 * @return The number of Base64 characters a full segment takes once sealed.
+	 */
+	protected static int encoded_segment_length() {
+		return 4 * ((segment_length + tag_length + 2) / 3);
+	}
+	
+	/**
+	 * @return The number of cipher units the wrapped AES key takes under the given block size.
+	 */
+	protected static int wrapped_key_units(int blockSize) {
+		return aes_key_length / blockSize + 1;
+	}
+}
@@ -1,15 +1,29 @@
 package rsa_module;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
+import rsa_module.arithmetic.Montgomery_Engine;
 import rsa_module.data_structures.Key_Set;
+import rsa_module.data_structures.Key_Store;
 import rsa_module.data_structures.Rsa_Private_Key;
 import rsa_module.data_structures.Rsa_Public_Key;
-import rsa_module.data_structures.Stringable_HashMap;
 import rsa_module.key_making.Key_Maker;
+import rsa_module.key_making.Key_Pool;
+import rsa_module.utility.Atomic_Replacement_Stream;
 import rsa_module.utility.File_Accesser;
 
 /**
@@ -20,11 +34,39 @@ import rsa_module.utility.File_Accesser;
  */
 public class Rsa_Module {
 	
+	/**
+	 * Files larger than this are encrypted and decrypted as streams rather than read into a String.
+	 */
+	private static final long streaming_threshold_in_bytes = 8 * 1024 * 1024;
+	
+	private static final int default_service_port = 8080;
+	
+	/**
+	 * The system property giving the number of decrypted blocks to cache. No cache is used unless it is set.
+	 */
+	private static final String block_cache_size_property = "rsa_module.block_cache_size";
+	
+	/**
+	 * The system property giving the most bytes compressed ciphertext may inflate to, 64 MiB unless it is set.
+	 */
+	private static final String maximum_inflated_bytes_property = "rsa_module.max_inflated_bytes";
+	
+	/**
+	 * The system property giving the number of key pairs to pre-generate in the background. No key pool is used
+	 * unless it is set.
+	 */
+	private static final String key_pool_depth_property = "rsa_module.key_pool_depth";
+	
+	/**
+	 * The system property naming the exponentiation engine, "montgomery" or the default "biginteger".
+	 */
+	private static final String engine_property = "rsa_module.engine";
+	
 	private Rsa_Public_Key public_key;
 	
 	private Rsa_Private_Key private_key;
 	
-	private Stringable_HashMap<String, Rsa_Public_Key> address_book;
+	private Key_Store address_book;
 	
 	private File_Accesser plain_text_file_accesser;
 	
@@ -32,29 +74,78 @@ public class Rsa_Module {
 	
 	private File_Accesser key_text_file_accesser;
 	
+	private File cipher_container_file;
+	
+	private File_Accesser signature_file_accesser;
+	
+	private Key_Pool key_pool;
+	
+	private File_Accesser key_pool_file_accesser;
+	
 	private Scanner input_scanner;
 	
+	/**
+	 * Where and in what form an encrypt command writes its ciphertext.
+	 */
+	private enum Cipher_Output {
+		TEXT, COMPRESSED_TEXT, HYBRID_TEXT, CONTAINER
+	}
+	
 	/**
 	 * Constructor creates and stores FileRW objects, and loads data from those files into the appropriate fields.
+	 * Keys are kept in the keystore KeyStore.rks beside the key file. If the keystore holds no private key yet,
+	 * the keys in the key file are imported into it, or new keys are generated if it has none.
 	 * It then engages the user command input method.
 	 * @param plain_text_file A File object for a .txt that stores plaintext.
 	 * @param cipherTextFile A File object for a .txt that stores ciphertext.
-	 * @param keyTextFile A File object for a .txt that stores keys.
+	 * @param keyTextFile A File object for a .txt that stores keys in text form, imported on first use.
 	 */
 	public Rsa_Module(File plain_text_file, File cipherTextFile, File keyTextFile) {
+		this(plain_text_file, cipherTextFile, keyTextFile, null);
+	}
+	
+	/**
+	 * Constructor as above, additionally taking key pairs for "generate new keys" from a pool of pre-generated pairs.
+	 * Unused pairs are spilled to KeyPool.txt beside the key file on exit, encrypted with the user's public key,
+	 * and restored into the pool on the next start.
+	 * @param keyPool A running key pool, or null to generate keys on demand.
+	 */
+	public Rsa_Module(File plain_text_file, File cipherTextFile, File keyTextFile, Key_Pool keyPool) {
+		this(plain_text_file, cipherTextFile, keyTextFile, keyPool, true);
+	}
+	
+	private Rsa_Module(File plain_text_file, File cipherTextFile, File keyTextFile, Key_Pool keyPool, boolean interactive) {
+		key_pool = keyPool;
 		plain_text_file_accesser = new File_Accesser(plain_text_file);
 		cipher_text_file_accesser = new File_Accesser(cipherTextFile);
 		key_text_file_accesser = new File_Accesser(keyTextFile);
-		address_book = new Stringable_HashMap<String, Rsa_Public_Key>();
-		String keys[] = key_text_file_accesser.readFile().split(System.lineSeparator());
-		if (detectExistingKeys(keys)) {
-			loadExistingKeysIntoAddressBook(keys);
+		cipher_container_file = new File(cipherTextFile.getAbsoluteFile().getParentFile(), "CipherText.rsac");
+		signature_file_accesser = new File_Accesser(new File(cipherTextFile.getAbsoluteFile().getParentFile(), "Signature.txt"));
+		try {
+			address_book = new Key_Store(new File(keyTextFile.getAbsoluteFile().getParentFile(), "KeyStore.rks").toPath());
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		if (address_book.getPrivateKey() != null) {
+			private_key = address_book.getPrivateKey();
+			public_key = address_book.get("self");
 		} else {
-			generateNewKeys();
+			String keys[] = key_text_file_accesser.readFile().split(System.lineSeparator());
+			if (detectExistingKeys(keys)) {
+				loadExistingKeysIntoAddressBook(keys);
+			} else {
+				generateNewKeys();
+			}
+		}
+		if (key_pool != null) {
+			key_pool_file_accesser = new File_Accesser(new File(keyTextFile.getAbsoluteFile().getParentFile(), "KeyPool.txt"));
+			key_pool.restore(key_pool_file_accesser, private_key);
+		}
+		if (interactive) {
+			input_scanner = new Scanner(System.in);
+			input_scanner.useDelimiter(System.lineSeparator());
+			commandSwitch();
 		}
-		input_scanner = new Scanner(System.in);
-		input_scanner.useDelimiter(System.lineSeparator());
-		commandSwitch();
 	}
 	
 	private Boolean detectExistingKeys(String[] keys) {
@@ -67,6 +158,7 @@ public class Rsa_Module {
 	
 	private void loadExistingKeysIntoAddressBook(String[] keys) {
 		this.private_key = new Rsa_Private_Key(keys[0]);
+		address_book.putPrivateKey(private_key);
 		Rsa_Public_Key newkey;
 		for (int i = 1; i < keys.length; i++) {
 			newkey = new Rsa_Public_Key(keys[i]);
@@ -75,20 +167,60 @@ public class Rsa_Module {
 			}
 			address_book.put(newkey.getID(), newkey);
 		}
+		System.out.println("Keys imported from KeyText.txt into KeyStore.rks. KeyText.txt is no longer read or written, "
+				+ "and keys are kept in the keystore from now on.");
 	}
 	
 	/**
 	 * Main method sets up File objects with expected paths and calls the constructor with them.
-	 * @param args Command line inputs not used at program initialization.
+	 * Units are exponentiated on the common ForkJoinPool.
+	 * @param args Empty for the interactive command interface, or "serve [port]" to load the keys once and run
+	 * Rsa_Service on the given loopback port, 8080 by default.
 	 */
 	public static void main(String[] args) {
 		File plainTextFile = new File(Paths.get("src/rsa_module/assets/PlainText.txt").toString());
 		File cipherTextFile = new File(Paths.get("src/rsa_module/assets/CipherText.txt").toString());
 		File keyTextFile = new File(Paths.get("src/rsa_module/assets/KeyText.txt").toString());
-		new Rsa_Module(plainTextFile, cipherTextFile, keyTextFile);
+		Rsa_Operator.setParallelExecution(new Parallel_Execution(ForkJoinPool.commonPool()));
+		int blockCacheSize = Integer.getInteger(block_cache_size_property, 0);
+		if (blockCacheSize > 0) {
+			Rsa_Decryption_Operator.setBlockCache(new Decrypted_Block_Cache(blockCacheSize));
+		}
+		int maximumInflatedBytes = Integer.getInteger(maximum_inflated_bytes_property, 0);
+		if (maximumInflatedBytes > 0) {
+			Rsa_Decryption_Operator.setMaximumInflatedLength(maximumInflatedBytes);
+		}
+		if (System.getProperty(engine_property, "biginteger").equalsIgnoreCase("montgomery")) {
+			Rsa_Operator.setExponentiationEngine(new Montgomery_Engine());
+		}
+		if (args.length > 0 && args[0].equals("serve")) {
+			int port = args.length > 1 ? Integer.parseInt(args[1]) : default_service_port;
+			new Rsa_Module(plainTextFile, cipherTextFile, keyTextFile, null, false).serve(port);
+			return;
+		}
+		int keyPoolDepth = Integer.getInteger(key_pool_depth_property, 0);
+		Key_Pool keyPool = null;
+		if (keyPoolDepth > 0) {
+			keyPool = new Key_Pool(keyPoolDepth, Key_Maker.default_modulus_bit_length, 1);
+		}
+		new Rsa_Module(plainTextFile, cipherTextFile, keyTextFile, keyPool);
 		
 	}
 	
+	/**
+	 * Starts Rsa_Service over the keys and address book this module has loaded.
+	 * @param port The loopback port to listen on.
+	 */
+	public void serve(int port) {
+		Rsa_Service service = new Rsa_Service(public_key, private_key, address_book);
+		try {
+			service.start(port);
+			System.out.println("Service listening on http://localhost:" + service.getPort());
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+	
 	/**
 	 * Method hosts the command interface by which users activate various supported actions.
 	 * Notable inputs include "exit" to terminate the program and "help" for information on further commands.
@@ -102,18 +234,33 @@ public class Rsa_Module {
 			 * Command to encrypt available plaintext with own public key.
 			 */
 			if (command.equals("encrypt to self")) {
-				String plainText = plain_text_file_accesser.readFile();
-				String cipherText = new Rsa_Encryption_Operator(public_key, plainText).getCipherText();
-				cipher_text_file_accesser.writeToFile(cipherText + System.lineSeparator() + public_key.toString());
-				System.out.println("Encrypted text written to cipherText.txt");
+				encrypt_with_outgoing_key(public_key, public_key);
 			} else if (command.equals("encrypt")) {
-				select_recipient_then_encrypt();
+				select_recipient_then_encrypt(Cipher_Output.TEXT);
+			} else if (command.equals("encrypt compressed")) {
+				select_recipient_then_encrypt(Cipher_Output.COMPRESSED_TEXT);
+			} else if (command.equals("encrypt hybrid")) {
+				select_recipient_then_encrypt(Cipher_Output.HYBRID_TEXT);
+			} else if (command.equals("encrypt to many")) {
+				select_recipients_then_encrypt();
+			} else if (command.equals("encrypt binary")) {
+				select_recipient_then_encrypt(Cipher_Output.CONTAINER);
 			} else if (command.equals("decrypt")) {
 				decrypt();
+			} else if (command.equals("decrypt binary")) {
+				decrypt_container();
+			} else if (command.equals("sign")) {
+				sign();
+			} else if (command.equals("verify")) {
+				verify();
 			} else if (command.equals("generate new keys")) {
 				if (confirmGenerateNewKeys()) {
 					generateNewKeys();
 				}
+			} else if (command.equals("key pool status")) {
+				print_key_pool_status();
+			} else if (command.equals("block cache status")) {
+				print_block_cache_status();
 			} else if (command.equals("help")) {
 				printHelpText();
 			} else {
@@ -124,10 +271,19 @@ public class Rsa_Module {
 			command = token.trim();
 		}
 		input_scanner.close();
+		if (key_pool != null) {
+			key_pool.shutdown();
+			key_pool.spill(key_pool_file_accesser, public_key);
+		}
+		try {
+			address_book.close();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
 		//Program Terminates
 	}
 	
-	private void select_recipient_then_encrypt() {
+	private void select_recipient_then_encrypt(Cipher_Output output) {
 		System.out.println("Enter an ID to select the corresponding public key.");
 		String token = input_scanner.next();
 		String command = token.trim();
@@ -139,44 +295,148 @@ public class Rsa_Module {
 					+ "to skip this step. Identifiers must not contain commas, colons, or newlines.");
 			token = input_scanner.next();
 			command = token.trim();
-			if (is_valid_public_key_id(command)) {
-				encrypt(recipient_key, command);
+			if (Rsa_Public_Key.isValidID(command)) {
+				encrypt(recipient_key, command, output);
 			} else {
 				print_bad_identifier_input_error_message();
 			}
 		}
 	}
 	
-	private Boolean is_valid_public_key_id(String command) {
-		return ! command.equals("skip") && 
-				! command.equals("self") && 
-				command.indexOf(',') == -1 && 
-				command.indexOf(':') == -1 && 
-				command.indexOf('\n') == -1;
+	private void select_recipients_then_encrypt() {
+		System.out.println("Enter the IDs of the recipients, separated by commas.");
+		String token = input_scanner.next();
+		List<String> recipient_ids = new ArrayList<String>();
+		List<Rsa_Public_Key> recipient_keys = new ArrayList<Rsa_Public_Key>();
+		Map<String, String> ids_by_file_name = new HashMap<String, String>();
+		for (String id : token.split(",")) {
+			String recipient_id = id.trim();
+			if (recipient_id.isEmpty() || recipient_ids.contains(recipient_id)) {
+				continue;
+			}
+			Rsa_Public_Key recipient_key = address_book.get(recipient_id);
+			if (recipient_key == null) {
+				System.out.println("Error: ID \"" + recipient_id + "\" has no matching Key stored. No text encrypted.");
+				return;
+			}
+			String other_id = ids_by_file_name.put(recipient_file_name(recipient_id).toLowerCase(Locale.ROOT), recipient_id);
+			if (other_id != null) {
+				System.out.println("Error: IDs \"" + other_id + "\" and \"" + recipient_id + "\" would be written to the same file. "
+						+ "Encrypt to them separately. No text encrypted.");
+				return;
+			}
+			recipient_ids.add(recipient_id);
+			recipient_keys.add(recipient_key);
+		}
+		if (recipient_keys.isEmpty()) {
+			System.out.println("Error: no IDs entered. No text encrypted.");
+			return;
+		}
+		System.out.println("Type an identifier to append your public key to these messages. "
+				+ "Identifiers must not contain commas, colons, or newlines.");
+		String command = input_scanner.next().trim();
+		if (Rsa_Public_Key.isValidID(command)) {
+			encrypt_to_many(recipient_ids, recipient_keys, copy_public_key_adding_identifier(command));
+		} else {
+			print_bad_identifier_input_error_message();
+		}
 	}
 	
-	private void encrypt(Rsa_Public_Key recipient_key, String command) {
-		String plain_text = retrieve_plain_text();
-		String cipher_text = encrypt_plain_text(recipient_key, plain_text);
+	private void encrypt(Rsa_Public_Key recipient_key, String command, Cipher_Output output) {
 		Rsa_Public_Key outgoing_key = copy_public_key_adding_identifier(command);
-		write_cipher_text_with_outgoing_key(cipher_text, outgoing_key);
+		if (output == Cipher_Output.CONTAINER) {
+			encrypt_to_container(recipient_key, outgoing_key);
+		} else if (output == Cipher_Output.COMPRESSED_TEXT) {
+			encrypt_compressed(recipient_key, outgoing_key);
+		} else if (output == Cipher_Output.HYBRID_TEXT) {
+			stream_encrypt(recipient_key, outgoing_key, Text_Encoding.HYBRID_AES_GCM);
+			print_successful_encryption_confirmation_message();
+		} else {
+			encrypt_with_outgoing_key(recipient_key, outgoing_key);
+		}
+	}
+	
+	private void encrypt_to_container(Rsa_Public_Key recipient_key, Rsa_Public_Key outgoing_key) {
+		try (InputStream plain_text = plain_text_file_accesser.openInputStream()) {
+			new Rsa_Container_Encryption_Operator(recipient_key).encrypt(plain_text, cipher_container_file.toPath(), outgoing_key);
+			System.out.println("Encrypted text written to CipherText.rsac");
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Encrypts the plaintext file through a pipeline, so that reading the file, exponentiation and writing the
+	 * ciphertext overlap rather than running one after another. With a single processor there is nothing to
+	 * overlap with, so the file is streamed through one thread instead.
+	 */
+	private void encrypt_with_outgoing_key(Rsa_Public_Key recipient_key, Rsa_Public_Key outgoing_key) {
+		stream_encrypt(recipient_key, outgoing_key, Text_Encoding.PACKED_BYTES);
+		print_successful_encryption_confirmation_message();
+	}
+	
+	/**
+	 * Compresses the plaintext before encrypting it, so that compressible text takes fewer units to encrypt.
+	 * Compression is skipped when it would not make the text smaller.
+	 */
+	private void encrypt_compressed(Rsa_Public_Key recipient_key, Rsa_Public_Key outgoing_key) {
+		Rsa_Encryption_Operator operator = new Rsa_Encryption_Operator(recipient_key, plain_text_file_accesser.readFile(),
+				Text_Encoding.DEFLATED_BYTES);
+		cipher_text_file_accesser.writeToFile(operator.getCipherText() + System.lineSeparator() + outgoing_key.toString());
+		if (operator.getEncoding() != Text_Encoding.DEFLATED_BYTES) {
+			System.out.println("Plaintext does not compress, so it was encrypted uncompressed.");
+		}
 		print_successful_encryption_confirmation_message();
 	}
 	
-	private String retrieve_plain_text() {
-		return plain_text_file_accesser.readFile();
+	/**
+	 * Reads and converts the plaintext once, then encrypts it for every recipient in parallel.
+	 * Each recipient's ciphertext is written to its own file beside assets/CipherText.txt.
+	 */
+	private void encrypt_to_many(List<String> recipient_ids, List<Rsa_Public_Key> recipient_keys, Rsa_Public_Key outgoing_key) {
+		Rsa_Multi_Recipient_Encryption_Operator operator = new Rsa_Multi_Recipient_Encryption_Operator(recipient_keys,
+				plain_text_file_accesser.readFile());
+		File directory = cipher_container_file.getParentFile();
+		for (int index = 0; index < recipient_ids.size(); index++) {
+			String file_name = recipient_file_name(recipient_ids.get(index));
+			new File_Accesser(new File(directory, file_name)).writeToFile(
+					operator.getCipherTexts().get(index) + System.lineSeparator() + outgoing_key.toString());
+			System.out.println("Encrypted text for " + recipient_ids.get(index) + " written to " + file_name);
+		}
+		System.out.println(operator.getThroughputReport());
 	}
 	
-	private String encrypt_plain_text(Rsa_Public_Key recipient_key, String plain_text) {
-		return new Rsa_Encryption_Operator(recipient_key, plain_text).getCipherText();
+	/**
+	 * Characters that are not safe in a file name become underscores, so different IDs can share a name.
+	 * select_recipients_then_encrypt refuses such IDs, ignoring case for case-insensitive file systems.
+	 */
+	private static String recipient_file_name(String recipient_id) {
+		return "CipherText." + recipient_id.replaceAll("[^A-Za-z0-9_.-]", "_") + ".txt";
 	}
 	
-	private Rsa_Public_Key copy_public_key_adding_identifier(String identifier) {
-		return new Rsa_Public_Key(public_key.getModulus(), public_key.getExponent(), identifier);
+	private boolean is_large_file(File_Accesser file_accesser) {
+		return file_accesser.length() > streaming_threshold_in_bytes;
 	}
 	
-	private void write_cipher_text_with_outgoing_key(String cipher_text, Rsa_Public_Key outgoing_key) {
-		cipher_text_file_accesser.writeToFile(cipher_text + System.lineSeparator() + outgoing_key.toString());
+	private void stream_encrypt(Rsa_Public_Key recipient_key, Rsa_Public_Key outgoing_key, Text_Encoding encoding) {
+		try (InputStream plain_text = plain_text_file_accesser.openInputStream();
+				Atomic_Replacement_Stream cipher_text = cipher_text_file_accesser.openOutputStream()) {
+			if (encoding == Text_Encoding.HYBRID_AES_GCM) {
+				new Rsa_Hybrid_Encryption_Operator(recipient_key).encrypt(plain_text, cipher_text);
+			} else if (Runtime.getRuntime().availableProcessors() > 1) {
+				new Rsa_Pipelined_Encryption_Operator(recipient_key).encrypt(plain_text, cipher_text);
+			} else {
+				new Rsa_Stream_Encryption_Operator(recipient_key).encrypt(plain_text, cipher_text);
+			}
+			cipher_text.write((System.lineSeparator() + outgoing_key.toString()).getBytes(StandardCharsets.UTF_8));
+			cipher_text.commit();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+	
+	private Rsa_Public_Key copy_public_key_adding_identifier(String identifier) {
+		return new Rsa_Public_Key(public_key.getModulus(), public_key.getExponent(), identifier);
 	}
 	
 	private void print_successful_encryption_confirmation_message() {
@@ -188,13 +448,115 @@ public class Rsa_Module {
 	}
 	
 	private void decrypt() {
+		if (cipher_text_has_marker(Text_Encoding.HYBRID_AES_GCM)) {
+			stream_decrypt(Text_Encoding.HYBRID_AES_GCM);
+			return;
+		}
+		if (is_large_file(cipher_text_file_accesser) && cipher_text_has_marker(Text_Encoding.PACKED_BYTES)) {
+			stream_decrypt(Text_Encoding.PACKED_BYTES);
+			return;
+		}
 		String[] cipherFileText = cipher_text_file_accesser.readFile().split(System.lineSeparator());
 		String cipherText = cipherFileText[0];
-		String plainText = new Rsa_Decryption_Operator(private_key, cipherText).getPlainText();
+		String plainText;
+		try {
+			plainText = new Rsa_Decryption_Operator(private_key, cipherText).getPlainText();
+		} catch (IllegalArgumentException iae) {
+			System.out.println("Error: " + iae.getMessage());
+			return;
+		}
 		plain_text_file_accesser.writeToFile(plainText);
 		System.out.println("Decrypted text written to plainText.txt");
-		if (cipherTextHasAppendedID(cipherFileText) && isUnsavedPublicKeyID(cipherFileText[1])) {
-			saveNewPublicKey(cipherFileText);
+		if (cipherTextHasAppendedID(cipherFileText) && isUnsavedPublicKey(cipherFileText[1])) {
+			saveNewPublicKey(cipherFileText[1]);
+		}
+	}
+	
+	private boolean cipher_text_has_marker(Text_Encoding encoding) {
+		byte[] marker = encoding.getMarker().getBytes(StandardCharsets.US_ASCII);
+		try (InputStream cipher_text = cipher_text_file_accesser.openInputStream()) {
+			return Arrays.equals(cipher_text.readNBytes(marker.length), marker);
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+			return false;
+		}
+	}
+	
+	private void decrypt_container() {
+		String appended_key;
+		try (Rsa_Container_Decryption_Operator container = 
+					new Rsa_Container_Decryption_Operator(private_key, cipher_container_file.toPath());
+				Atomic_Replacement_Stream plain_text = plain_text_file_accesser.openOutputStream()) {
+			container.decrypt(plain_text);
+			appended_key = container.getHeader().getAppendedKey();
+			plain_text.commit();
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Error: " + e.getMessage());
+			return;
+		}
+		System.out.println("Decrypted text written to plainText.txt");
+		if (! appended_key.isEmpty() && isUnsavedPublicKey(appended_key)) {
+			saveNewPublicKey(appended_key);
+		}
+	}
+	
+	private void stream_decrypt(Text_Encoding encoding) {
+		String appended_key;
+		try (InputStream cipher_text = cipher_text_file_accesser.openInputStream();
+				Atomic_Replacement_Stream plain_text = plain_text_file_accesser.openOutputStream()) {
+			if (encoding == Text_Encoding.HYBRID_AES_GCM) {
+				appended_key = new Rsa_Hybrid_Decryption_Operator(private_key).decrypt(cipher_text, plain_text);
+			} else {
+				appended_key = new Rsa_Stream_Decryption_Operator(private_key).decrypt(cipher_text, plain_text);
+			}
+			plain_text.commit();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+			return;
+		} catch (IllegalArgumentException iae) {
+			System.out.println("Error: " + iae.getMessage());
+			return;
+		}
+		System.out.println("Decrypted text written to plainText.txt");
+		if (! appended_key.isEmpty() && isUnsavedPublicKey(appended_key)) {
+			saveNewPublicKey(appended_key);
+		}
+	}
+	
+	private void sign() {
+		try (InputStream plain_text = plain_text_file_accesser.openInputStream()) {
+			signature_file_accesser.writeToFile(new Rsa_Signing_Operator(private_key, plain_text).getSignature());
+			System.out.println("Signature written to Signature.txt");
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		} catch (IllegalArgumentException iae) {
+			System.out.println("Error: " + iae.getMessage());
+		}
+	}
+	
+	private void verify() {
+		System.out.println("Enter the ID of the signer to select the corresponding public key.");
+		String signer_id = input_scanner.next().trim();
+		Rsa_Public_Key signer_key = address_book.get(signer_id);
+		if (signer_key == null) {
+			System.out.println("Error: entered ID has no matching Key stored.");
+			return;
+		}
+		if (signature_file_accesser.length() == 0) {
+			System.out.println("Error: no signature in Signature.txt. Nothing verified.");
+			return;
+		}
+		String signature = signature_file_accesser.readFile().split(System.lineSeparator())[0].trim();
+		try (InputStream plain_text = plain_text_file_accesser.openInputStream()) {
+			if (new Rsa_Verification_Operator(signer_key, plain_text, signature).isValid()) {
+				System.out.println("Signature is valid: PlainText.txt was signed by " + signer_id + ".");
+			} else {
+				System.out.println("Signature is not valid: PlainText.txt was altered or not signed by " + signer_id + ".");
+			}
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		} catch (IllegalArgumentException iae) {
+			System.out.println("Error: " + iae.getMessage());
 		}
 	}
 	
@@ -202,22 +564,28 @@ public class Rsa_Module {
 		return cipherFileText.length == 2;
 	}
 	
-	private boolean isUnsavedPublicKeyID(String cipherTextPublicKey) {
-		return ! address_book.containsKey(cipherTextPublicKey.substring(0, cipherTextPublicKey.indexOf(':')));
+	/**
+	 * A key is unsaved if neither its ID nor its modulus is in the address book. A known modulus under a new ID
+	 * is reported rather than saved again.
+	 */
+	private boolean isUnsavedPublicKey(String cipherTextPublicKey) {
+		if (address_book.containsKey(cipherTextPublicKey.substring(0, cipherTextPublicKey.indexOf(':')))) {
+			return false;
+		}
+		String savedID = address_book.findID(new Rsa_Public_Key(cipherTextPublicKey));
+		if (savedID != null) {
+			System.out.println("Sender key is already saved with ID: " + savedID);
+			return false;
+		}
+		return true;
 	}
 	
-	private void saveNewPublicKey(String[] cipherFileText) {
-		String[] appendedKey = cipherFileText[1].split(":");
+	private void saveNewPublicKey(String cipherTextPublicKey) {
+		String[] appendedKey = cipherTextPublicKey.split(":");
 		String incomingID = appendedKey[0];
 		String[] incomingKey = appendedKey[1].split(",");
 		address_book.put(incomingID, new Rsa_Public_Key(
 				new BigInteger(incomingKey[0]), new BigInteger(incomingKey[1]), incomingID));
-		StringBuilder newKeyText = new StringBuilder();
-		newKeyText.append("selfPrivate: " + private_key.toString() + System.lineSeparator());
-		for (Rsa_Public_Key key : address_book.values()) {
-			newKeyText.append(key.toString() + System.lineSeparator());
-		}
-		key_text_file_accesser.writeToFile(newKeyText.toString());
 		System.out.println("Sender key saved with ID: " + incomingID);
 	}
 	
@@ -235,22 +603,48 @@ public class Rsa_Module {
 	}
 	
 	private void generateNewKeys() {
-		Key_Set newKeys = new Key_Maker().getNewKeys();
+		Key_Set newKeys;
+		if (key_pool != null) {
+			newKeys = key_pool.take();
+		} else {
+			Key_Maker key_maker = new Key_Maker();
+			newKeys = key_maker.getNewKeys();
+			System.out.println(key_maker.getTimingReport());
+		}
 		public_key = newKeys.getPublicKey();
 		private_key = newKeys.getPrivateKey();
 		saveKeysToFile();
+		if (Rsa_Decryption_Operator.getBlockCache() != null) {
+			Rsa_Decryption_Operator.getBlockCache().clear();
+		}
+	}
+	
+	private void print_key_pool_status() {
+		if (key_pool == null) {
+			System.out.println("No key pool is in use. Set -D" + key_pool_depth_property + " to enable one.");
+		} else {
+			System.out.println("Key pool: " + key_pool.getReadyCount() + " pairs ready, " + key_pool.getHitCount() 
+					+ " hits, " + key_pool.getMissCount() + " misses.");
+		}
+	}
+	
+	private void print_block_cache_status() {
+		if (Rsa_Decryption_Operator.getBlockCache() == null) {
+			System.out.println("No block cache is in use. Set -D" + block_cache_size_property + " to enable one.");
+		} else {
+			System.out.println(Rsa_Decryption_Operator.getBlockCache().getStatusReport());
+		}
 	}
 	
 	private void saveKeysToFile() {
-		String priKey = "selfPrivate:" + private_key.toString() + System.lineSeparator();
+		address_book.putPrivateKey(private_key);
 		address_book.put("self", public_key);
-		key_text_file_accesser.writeToFile(priKey + address_book.toString());
 	}
 	
 	private void printHelpText() {
 		System.out.println("Accepted commands are:");
 		System.out.print("\"encrypt\": Runs the RSA encryption algorithm on the text in assets/PlainText.txt using a key ");
-		System.out.print("in assets/KeyText.txt. User will be prompted to select an ID corresponding to the public key ");
+		System.out.print("in assets/KeyStore.rks. User will be prompted to select an ID corresponding to the public key ");
 		System.out.print("desired for encryption use and then for an ID to append to user's own outgoing public key. ");
 		System.out.println("The encrypted message will be written to assets/CipherText.txt.");
 		System.out.print("\"encrypt to self\": A shortcut for the encrypt command that encrypts the message with the user's ");
@@ -258,7 +652,22 @@ public class Rsa_Module {
 		System.out.print("\"decrypt\": Runs the RSA decryption algorithm on the text in assets/CipherText.txt using the User's ");
 		System.out.print("private key. Decrypted plaintext is stored in assets/PlainText.txt. If a public key is appended to ");
 		System.out.println("the message, it will be added to the user's address book if it is not already there.");
+		System.out.print("\"encrypt compressed\": As \"encrypt\", but the plaintext is compressed first, so that text such as ");
+		System.out.println("English prose or logs takes fewer units to encrypt. \"decrypt\" recognizes it.");
+		System.out.print("\"encrypt hybrid\": As \"encrypt\", but only a random AES key is RSA encrypted and the message ");
+		System.out.println("itself is encrypted with AES-GCM, which is far faster for large messages. \"decrypt\" recognizes it.");
+		System.out.print("\"encrypt to many\": As \"encrypt\", but for several recipients at once, entered as IDs separated ");
+		System.out.print("by commas. The plaintext is read once and encrypted for every recipient in parallel. Each ");
+		System.out.println("recipient's message is written to assets/CipherText.<ID>.txt, to be sent on to that recipient.");
+		System.out.print("\"encrypt binary\" and \"decrypt binary\": As \"encrypt\" and \"decrypt\", but using the compact binary ");
+		System.out.println("ciphertext container assets/CipherText.rsac in place of assets/CipherText.txt.");
+		System.out.print("\"sign\": Signs the text in assets/PlainText.txt with the user's private key, writing the ");
+		System.out.println("signature to assets/Signature.txt.");
+		System.out.print("\"verify\": Checks the signature in assets/Signature.txt against assets/PlainText.txt. User will be ");
+		System.out.println("prompted for the ID of the public key of the claimed signer.");
 		System.out.print("\"generate new keys\": Forces regeneration of the user's private and public keys. ");
 		System.out.println("This command has a verify step.");
+		System.out.println("\"key pool status\": Shows how many pre-generated key pairs are ready, and the pool's hit and miss counts.");
+		System.out.println("\"block cache status\": Shows how full the decrypted block cache is, and its hit, miss and eviction counts.");
 	}
 }
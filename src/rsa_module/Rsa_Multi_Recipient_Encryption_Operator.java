@@ -0,0 +1,125 @@
+package rsa_module;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.utility.Byte_Compressor;
+
+/**
+ * Encrypts one message for many recipients. The text is converted to bytes, and compressed if asked, only once;
+ * the bytes are then encrypted for every recipient in parallel on the operators' pool, or the common pool if the
+ * operators run sequentially. Each recipient's ciphertext is the same as Rsa_Encryption_Operator would produce
+ * for that recipient alone.
+ * Individual objects intended to be one-use.
+ * @author James Talbott
+ */
+public class Rsa_Multi_Recipient_Encryption_Operator {
+	
+	private final List<Rsa_Public_Key> recipients;
+	
+	private final List<String> cipherTexts;
+	
+	private Text_Encoding encoding;
+	
+	private final long plainTextBytes;
+	
+	private final long nanos;
+	
+	/**
+	 * Encrypts with the packed byte encoding.
+	 * @param recipients The recipients' public keys.
+	 * @param plainText The text to encrypt.
+	 */
+	public Rsa_Multi_Recipient_Encryption_Operator(List<Rsa_Public_Key> recipients, String plainText) {
+		this(recipients, plainText, Text_Encoding.PACKED_BYTES);
+	}
+	
+	/**
+	 * @param recipients The recipients' public keys.
+	 * @param plainText The text to encrypt.
+	 * @param encoding PACKED_BYTES or DEFLATED_BYTES. As with Rsa_Encryption_Operator, text that does not compress
+	 * is encrypted as PACKED_BYTES instead.
+	 */
+	public Rsa_Multi_Recipient_Encryption_Operator(List<Rsa_Public_Key> recipients, String plainText, Text_Encoding encoding) {
+		if (encoding != Text_Encoding.PACKED_BYTES && encoding != Text_Encoding.DEFLATED_BYTES) {
+			throw new IllegalArgumentException("Multi-recipient encryption supports the packed byte encodings only.");
+		}
+		long start = System.nanoTime();
+		this.recipients = new ArrayList<Rsa_Public_Key>(recipients);
+		this.encoding = encoding;
+		byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+		this.plainTextBytes = plainBytes.length;
+		this.cipherTexts = encrypt_for_each_recipient(encode(plainBytes));
+		this.nanos = System.nanoTime() - start;
+	}
+	
+	private byte[] encode(byte[] plainBytes) {
+		if (encoding == Text_Encoding.DEFLATED_BYTES) {
+			byte[] compressedBytes = Byte_Compressor.deflate(plainBytes);
+			if (compressedBytes.length < plainBytes.length) {
+				return compressedBytes;
+			}
+			encoding = Text_Encoding.PACKED_BYTES;
+		}
+		return plainBytes;
+	}
+	
+	private List<String> encrypt_for_each_recipient(byte[] encodedBytes) {
+		ForkJoinPool pool = Rsa_Operator.getParallelExecution().getPool();
+		if (pool == null) {
+			pool = ForkJoinPool.commonPool();
+		}
+		Text_Encoding written_encoding = encoding;
+		List<CompletableFuture<String>> results = new ArrayList<CompletableFuture<String>>();
+		for (Rsa_Public_Key recipient : recipients) {
+			results.add(CompletableFuture.supplyAsync(
+					() -> new Rsa_Encryption_Operator(recipient, encodedBytes, written_encoding).getCipherText(), pool));
+		}
+		List<String> cipherTexts = new ArrayList<String>();
+		try {
+			for (CompletableFuture<String> result : results) {
+				cipherTexts.add(result.join());
+			}
+		} catch (CompletionException ce) {
+			if (ce.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ce.getCause();
+			}
+			throw ce;
+		}
+		return Collections.unmodifiableList(cipherTexts);
+	}
+	
+	/**
+	 * @return Each recipient's ciphertext, in the order the recipients were given.
+	 */
+	public List<String> getCipherTexts() {
+		return cipherTexts;
+	}
+	
+	public List<Rsa_Public_Key> getRecipients() {
+		return Collections.unmodifiableList(recipients);
+	}
+	
+	/**
+	 * @return The encoding every ciphertext was actually written in.
+	 */
+	public Text_Encoding getEncoding() {
+		return encoding;
+	}
+	
+	/**
+	 * @return The time taken and the rate achieved, counting the plaintext once per recipient.
+	 */
+	public String getThroughputReport() {
+		double seconds = nanos / 1e9;
+		return String.format("Encrypted %d bytes for %d recipients in %.1f ms: %.1f recipients/s, %.2f MB/s across recipients.",
+				plainTextBytes, recipients.size(), nanos / 1e6, recipients.size() / seconds,
+				plainTextBytes * recipients.size() / seconds / 1e6);
+	}
+}
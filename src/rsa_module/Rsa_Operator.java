@@ -1,40 +1,104 @@
 package rsa_module;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import rsa_module.arithmetic.Big_Integer_Engine;
+import rsa_module.arithmetic.Exponentiation_Engine;
+import rsa_module.data_structures.Rsa_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.instrumentation.Stage;
+import rsa_module.instrumentation.Stage_Event;
+import rsa_module.utility.Decimal_Codec;
+
 public abstract class Rsa_Operator {
 	
-	protected int length_of_numeric_characters = 4;
+	private static volatile Parallel_Execution parallel_execution = Parallel_Execution.sequential();
 	
-	protected String[] break_text_into_units(String text, int lengthOfUnits) {
-		int textLength = text.length();
-		String[] units = new String[determine_number_of_units(text, lengthOfUnits)];
-		for (int index = 0; index < units.length; index ++) {
-			units[index] = text.substring(index * lengthOfUnits, Math.min((index + 1) * lengthOfUnits, textLength));
-		}
-		return units;
+	private static volatile Exponentiation_Engine exponentiation_engine = new Big_Integer_Engine();
+	
+	/**
+	 * Sets how all operators exponentiate their units from now on. Sequential by default.
+	 * @param execution The execution mode to use.
+	 */
+	public static void setParallelExecution(Parallel_Execution execution) {
+		parallel_execution = execution;
 	}
 	
-	protected int determine_number_of_units(String text, int lengthOfUnits) {
-		int numberOfUnits = text.length() / lengthOfUnits;
-		if (text.length() % lengthOfUnits > 0) {
-			numberOfUnits++;
-		}
-		return numberOfUnits;
+	public static Parallel_Execution getParallelExecution() {
+		return parallel_execution;
+	}
+	
+	/**
+	 * Sets the arithmetic all operators exponentiate with from now on. BigInteger by default.
+	 * @param engine The engine to use.
+	 */
+	public static void setExponentiationEngine(Exponentiation_Engine engine) {
+		exponentiation_engine = engine;
 	}
 	
-	protected String[] fill_out_units_to_constant_length(String[] units, int unitLength) {
+	public static Exponentiation_Engine getExponentiationEngine() {
+		return exponentiation_engine;
+	}
+	
+	/**
+	 * Exponentiates the first count units in place under the current execution mode.
+	 */
+	protected void exponentiate_units(BigInteger[] units, int count, Rsa_Key key) {
+		exponentiate_units(units, count, key, parallel_execution);
+	}
+	
+	/**
+	 * Exponentiates the first count units in place under the given execution mode, for callers that are already
+	 * running in parallel.
+	 */
+	protected void exponentiate_units(BigInteger[] units, int count, Rsa_Key key, Parallel_Execution execution) {
+		Stage_Event event = Instrumentation.begin(Stage.EXPONENTIATION);
+		execution.exponentiate_units(units, count, key, exponentiation_engine);
+		Instrumentation.end(event, count, 0);
+		Instrumentation.count_blocks(count);
+	}
+	
+	/**
+	 * Parses a run of digits as consecutive units of unitLength digits each. The last unit may be shorter.
+	 * @param digits ASCII digits.
+	 * @param offset The first digit.
+	 * @param length The number of digits.
+	 * @param unitLength The number of digits per unit.
+	 * @param codec The codec to parse with.
+	 * @return The units.
+	 */
+	protected BigInteger[] parse_units(byte[] digits, int offset, int length, int unitLength, Decimal_Codec codec) {
+		Stage_Event event = Instrumentation.begin(Stage.BLOCK_SPLITTING);
+		BigInteger[] units = new BigInteger[(length + unitLength - 1) / unitLength];
 		for (int index = 0; index < units.length; index++) {
-			while (units[index].length() < unitLength) {
-				units[index] = "0" + units[index];
-			}
+			int start = index * unitLength;
+			units[index] = codec.parse(digits, offset + start, Math.min(unitLength, length - start));
 		}
+		Instrumentation.end(event, units.length, length);
 		return units;
 	}
 	
-	protected String concatenate_units_into_text(String[] units) {
-		StringBuilder concatenator = new StringBuilder();
-		for (int index = 0; index < units.length; index++) {
-			concatenator.append(units[index]);
+	/**
+	 * Writes units as zero-padded decimal digits of unitLength each, after a marker.
+	 * Every unit must be smaller than the modulus, so none is longer than the cipher unit length.
+	 * @param marker The text written before the units.
+	 * @param units The units.
+	 * @param unitLength The number of digits per unit.
+	 * @param codec The codec to format with.
+	 * @return The marker followed by the units.
+	 */
+	protected String format_units(String marker, BigInteger[] units, int unitLength, Decimal_Codec codec) {
+		Stage_Event event = Instrumentation.begin(Stage.CONCATENATION);
+		byte[] markerBytes = marker.getBytes(StandardCharsets.ISO_8859_1);
+		byte[] text = new byte[markerBytes.length + units.length * unitLength];
+		System.arraycopy(markerBytes, 0, text, 0, markerBytes.length);
+		int position = markerBytes.length;
+		for (BigInteger unit : units) {
+			position += codec.write(unit, unitLength, text, position);
 		}
-		return concatenator.toString();
+		String formatted = new String(text, StandardCharsets.ISO_8859_1);
+		Instrumentation.end(event, units.length, text.length);
+		return formatted;
 	}
 }
@@ -0,0 +1,317 @@
+package rsa_module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Decimal_Codec;
+
+/**
+ * Encrypts a stream as a pipeline of stages on their own threads, so that reading, exponentiation and writing overlap
+ * instead of taking turns. A reader thread reads plaintext a window at a time, a codec thread turns each window into
+ * units, a pool of workers exponentiates and formats whole windows, and the calling thread writes them out.
+ * Stages are joined by bounded queues, so a slow stage stalls the ones before it rather than letting windows pile up.
+ * Windows are written in the order they were read: the reader queues each window's pending result for the writer
+ * as it reads it, and that queue's bound also caps the number of windows in flight, and with it memory use.
+ * Anything a stage throws, Errors included, fails every window still in flight. The writer waits on results in
+ * bounded steps, checking between them that the stages have not failed or stopped, so a failure cannot leave it
+ * waiting forever.
+ * Writes the same packed byte ciphertext, marker included, as Rsa_Stream_Encryption_Operator.
+ * Objects are one-use.
+ * @author James Talbott
+ */
+public class Rsa_Pipelined_Encryption_Operator extends Rsa_Operator {
+	
+	/**
+	 * Queued to each worker to tell it no more windows are coming.
+	 */
+	private static final Window end_of_windows = new Window(null, 0, true);
+	
+	/**
+	 * How long the writer waits for a window before checking the stages are still running.
+	 */
+	private static final long stage_check_millis = 100;
+	
+	private final Rsa_Public_Key publicKey;
+	
+	private final int blockSize;
+	
+	private final int cipherUnitLength;
+	
+	private final int workers;
+	
+	private final BlockingQueue<Window> read_windows;
+	
+	private final BlockingQueue<Window> encoded_windows;
+	
+	private final BlockingQueue<Window> ordered_windows;
+	
+	private final List<Thread> threads = new ArrayList<Thread>();
+	
+	private final List<Thread> worker_threads = new ArrayList<Thread>();
+	
+	/**
+	 * The first thing a stage threw, or null.
+	 */
+	private volatile Throwable failure;
+	
+	/**
+	 * One window of plaintext as it passes through the stages.
+	 */
+	private static class Window {
+		
+		private final byte[] plainText;
+		
+		private final int length;
+		
+		private final boolean last;
+		
+		private BigInteger[] units;
+		
+		private final CompletableFuture<byte[]> cipherText = new CompletableFuture<byte[]>();
+		
+		private Window(byte[] plainText, int length, boolean last) {
+			this.plainText = plainText;
+			this.length = length;
+			this.last = last;
+		}
+	}
+	
+	/**
+	 * Uses a worker per available processor and room for two windows per worker in each queue.
+	 * @param publicKey The recipient's public key.
+	 */
+	public Rsa_Pipelined_Encryption_Operator(Rsa_Public_Key publicKey) {
+		this(publicKey, Runtime.getRuntime().availableProcessors(), 2 * Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * @param publicKey The recipient's public key.
+	 * @param workers The number of exponentiation threads.
+	 * @param queue_capacity The number of windows each queue holds. At most this many windows, plus one per stage,
+	 * are in memory at once.
+	 */
+	public Rsa_Pipelined_Encryption_Operator(Rsa_Public_Key publicKey, int workers, int queue_capacity) {
+		if (workers < 1 || queue_capacity < 1) {
+			throw new IllegalArgumentException("Pipeline needs at least one worker and a queue capacity of at least one.");
+		}
+		this.publicKey = publicKey;
+		this.blockSize = publicKey.getContext().getPackedBlockSize();
+		this.cipherUnitLength = publicKey.getContext().getCipherUnitLength();
+		this.workers = workers;
+		this.read_windows = new ArrayBlockingQueue<Window>(queue_capacity);
+		this.encoded_windows = new ArrayBlockingQueue<Window>(queue_capacity);
+		this.ordered_windows = new ArrayBlockingQueue<Window>(queue_capacity);
+	}
+	
+	/**
+	 * Encrypts everything remaining in the input and writes the ciphertext line to the output.
+	 * Neither stream is closed, so that callers may append further lines such as an outgoing key.
+	 * @param plainText The plaintext bytes, expected to be UTF-8.
+	 * @param cipherText Receives the ciphertext as ASCII digits.
+	 * @throws IOException If either stream fails.
+	 */
+	public void encrypt(InputStream plainText, OutputStream cipherText) throws IOException {
+		start_thread("pipeline-reader", () -> read(plainText));
+		start_thread("pipeline-codec", this::encode);
+		for (int index = 0; index < workers; index++) {
+			worker_threads.add(start_thread("pipeline-worker-" + index, this::exponentiate));
+		}
+		try {
+			byte[] marker = Text_Encoding.PACKED_BYTES.getMarker().getBytes(StandardCharsets.US_ASCII);
+			cipherText.write(marker);
+			Instrumentation.count_encryption(marker.length + write(cipherText));
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while encrypting.", ie);
+		} finally {
+			for (Thread thread : threads) {
+				thread.interrupt();
+			}
+		}
+	}
+	
+	private Thread start_thread(String name, Runnable stage) {
+		Thread thread = new Thread(stage, name);
+		thread.setDaemon(true);
+		threads.add(thread);
+		thread.start();
+		return thread;
+	}
+	
+	/**
+	 * Reads windows of whole units until the input ends. The last window is shorter than the rest, possibly empty.
+	 */
+	private void read(InputStream plainText) {
+		int windowLength = Rsa_Stream_Encryption_Operator.units_per_window * blockSize;
+		try {
+			boolean last = false;
+			while (! last) {
+				byte[] bytes = new byte[windowLength];
+				Window window;
+				try {
+					int length = plainText.readNBytes(bytes, 0, windowLength);
+					last = length < windowLength;
+					window = new Window(bytes, length, last);
+				} catch (IOException ioe) {
+					last = true;
+					window = new Window(null, 0, true);
+					window.cipherText.completeExceptionally(ioe);
+				}
+				ordered_windows.put(window);
+				if (! window.cipherText.isDone()) {
+					read_windows.put(window);
+				}
+			}
+		} catch (InterruptedException ie) {
+			//Pipeline is shutting down.
+		} catch (Throwable t) {
+			fail(t, null);
+		}
+	}
+	
+	/**
+	 * Turns each window into units, padding the last as Byte_Block_Packer does.
+	 */
+	private void encode() {
+		Window window = null;
+		try {
+			do {
+				window = read_windows.take();
+				int fullUnits = window.length / blockSize;
+				window.units = new BigInteger[fullUnits + (window.last ? 1 : 0)];
+				for (int index = 0; index < fullUnits; index++) {
+					window.units[index] = new BigInteger(1, window.plainText, index * blockSize, blockSize);
+				}
+				if (window.last) {
+					byte[] finalUnit = new byte[blockSize];
+					System.arraycopy(window.plainText, fullUnits * blockSize, finalUnit, 0, window.length - fullUnits * blockSize);
+					Byte_Block_Packer.pad_unit(finalUnit, window.length - fullUnits * blockSize);
+					window.units[fullUnits] = new BigInteger(1, finalUnit);
+				}
+				encoded_windows.put(window);
+			} while (! window.last);
+			for (int index = 0; index < workers; index++) {
+				encoded_windows.put(end_of_windows);
+			}
+		} catch (InterruptedException ie) {
+			//Pipeline is shutting down.
+		} catch (Throwable t) {
+			fail(t, window);
+		}
+	}
+	
+	/**
+	 * Exponentiates and formats whole windows. The pipeline is already parallel, so each window is exponentiated
+	 * sequentially rather than split further.
+	 */
+	private void exponentiate() {
+		Decimal_Codec codec = new Decimal_Codec();
+		Window window = null;
+		try {
+			window = encoded_windows.take();
+			while (window != end_of_windows) {
+				exponentiate_units(window.units, window.units.length, publicKey, Parallel_Execution.sequential());
+				byte[] digits = new byte[window.units.length * cipherUnitLength];
+				for (int index = 0; index < window.units.length; index++) {
+					codec.write(window.units[index], cipherUnitLength, digits, index * cipherUnitLength);
+				}
+				window.cipherText.complete(digits);
+				window = encoded_windows.take();
+			}
+		} catch (InterruptedException ie) {
+			//Pipeline is shutting down.
+		} catch (Throwable t) {
+			fail(t, window);
+		}
+	}
+	
+	/**
+	 * Records a stage's failure and fails the window it was working on along with every window still queued.
+	 * The stage then stops. Windows queued after this are caught by the writer's checks instead.
+	 */
+	private void fail(Throwable cause, Window window) {
+		if (failure == null) {
+			failure = cause;
+		}
+		if (window != null && window != end_of_windows) {
+			window.cipherText.completeExceptionally(cause);
+		}
+		for (BlockingQueue<Window> queue : List.of(ordered_windows, read_windows, encoded_windows)) {
+			for (Window queued : queue) {
+				if (queued != end_of_windows) {
+					queued.cipherText.completeExceptionally(cause);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes windows in the order they were read, waiting for each to finish.
+	 * @return The number of bytes written.
+	 */
+	private long write(OutputStream cipherText) throws IOException, InterruptedException {
+		long bytesWritten = 0;
+		Window window;
+		do {
+			window = next_window();
+			byte[] digits = result_of(window);
+			cipherText.write(digits);
+			bytesWritten += digits.length;
+		} while (! window.last);
+		return bytesWritten;
+	}
+	
+	private Window next_window() throws InterruptedException {
+		Window window = ordered_windows.poll(stage_check_millis, TimeUnit.MILLISECONDS);
+		while (window == null) {
+			check_stages();
+			window = ordered_windows.poll(stage_check_millis, TimeUnit.MILLISECONDS);
+		}
+		return window;
+	}
+	
+	private byte[] result_of(Window window) throws IOException, InterruptedException {
+		while (true) {
+			try {
+				return window.cipherText.get(stage_check_millis, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException te) {
+				check_stages();
+			} catch (ExecutionException ee) {
+				if (ee.getCause() instanceof IOException) {
+					throw (IOException) ee.getCause();
+				}
+				throw new IllegalStateException("Encryption failed.", ee.getCause());
+			}
+		}
+	}
+	
+	/**
+	 * Fails the encryption if a stage has failed, or if every worker has stopped, since workers only stop on their
+	 * own once every window has been exponentiated.
+	 */
+	private void check_stages() {
+		if (failure != null) {
+			throw new IllegalStateException("Encryption failed.", failure);
+		}
+		for (Thread worker : worker_threads) {
+			if (worker.isAlive()) {
+				return;
+			}
+		}
+		throw new IllegalStateException("Encryption failed: every pipeline worker has stopped.");
+	}
+}
@@ -0,0 +1,246 @@
+package rsa_module;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.utility.Latency_Histogram;
+
+/**
+ * A long-running local HTTP service over keys that were loaded once at startup. Listens on the loopback address only.
+ * Endpoints:
+ * POST /encrypt?recipient=ID[&identifier=NAME] encrypts the request body for a stored key, appending the user's
+ * public key under NAME if given, exactly as the "encrypt" command writes CipherText.txt. NAME is refused with 400
+ * under the rules the "encrypt" command applies to identifiers.
+ * POST /decrypt decrypts a ciphertext line with the user's private key. Any appended key is ignored.
+ * GET /keys[?id=ID] returns one stored public key, or all of them.
+ * GET /metrics returns the request count and p50/p99 latency of each operation.
+ * Each request runs on its own virtual thread when the JVM supports them, and on a cached thread pool otherwise.
+ * Encryption and decryption bodies are streamed.
+ * @author James Talbott
+ */
+public class Rsa_Service {
+	
+	private static final String[] operations = {"encrypt", "decrypt", "keys"};
+	
+	private final Rsa_Public_Key public_key;
+	
+	private final Rsa_Private_Key private_key;
+	
+	private final Map<String, Rsa_Public_Key> address_book;
+	
+	private final Map<String, Latency_Histogram> latencies = new HashMap<String, Latency_Histogram>();
+	
+	private HttpServer server;
+	
+	private ExecutorService executor;
+	
+	/**
+	 * @param public_key The user's public key.
+	 * @param private_key The user's private key.
+	 * @param address_book The stored public keys by ID. Must not be modified while the service runs.
+	 */
+	public Rsa_Service(Rsa_Public_Key public_key, Rsa_Private_Key private_key, Map<String, Rsa_Public_Key> address_book) {
+		this.public_key = public_key;
+		this.private_key = private_key;
+		this.address_book = address_book;
+		for (String operation : operations) {
+			latencies.put(operation, new Latency_Histogram());
+		}
+	}
+	
+	/**
+	 * Starts listening. Returns immediately; the service runs until stop is called.
+	 * @param port The loopback port to listen on, or 0 for any free port.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		executor = new_request_executor();
+		server.setExecutor(executor);
+		server.createContext("/encrypt", timed("encrypt", this::handle_encrypt));
+		server.createContext("/decrypt", timed("decrypt", this::handle_decrypt));
+		server.createContext("/keys", timed("keys", this::handle_keys));
+		server.createContext("/metrics", this::handle_metrics);
+		server.start();
+	}
+	
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	public void stop() {
+		server.stop(0);
+		executor.shutdown();
+	}
+	
+	/**
+	 * Virtual threads are only available from Java 21, so they are looked up reflectively
+	 * to keep the service usable on the Java 17 baseline.
+	 */
+	private static ExecutorService new_request_executor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException roe) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+	
+	public Latency_Histogram getLatency(String operation) {
+		return latencies.get(operation);
+	}
+	
+	/**
+	 * Failures before the status is sent are answered with 400. Once a streamed 200 has been sent, a failure
+	 * instead drops the connection without ending the chunked body, so that the client sees a broken response
+	 * rather than a short one that looks complete.
+	 */
+	private HttpHandler timed(String operation, HttpHandler handler) {
+		Latency_Histogram histogram = latencies.get(operation);
+		return exchange -> {
+			long start = System.nanoTime();
+			try {
+				handler.handle(exchange);
+			} catch (IllegalArgumentException iae) {
+				if (exchange.getResponseCode() != -1) {
+					throw new IOException("Request failed after its response was committed.", iae);
+				}
+				send_text(exchange, 400, iae.getMessage());
+			} finally {
+				histogram.record(System.nanoTime() - start);
+			}
+			exchange.close();
+		};
+	}
+	
+	private void handle_encrypt(HttpExchange exchange) throws IOException {
+		if (! require_method(exchange, "POST")) {
+			return;
+		}
+		Map<String, String> query = parse_query(exchange);
+		Rsa_Public_Key recipient_key = address_book.get(query.getOrDefault("recipient", ""));
+		if (recipient_key == null) {
+			send_text(exchange, 404, "No key stored for recipient.");
+			return;
+		}
+		String identifier = query.get("identifier");
+		if (identifier != null && ! Rsa_Public_Key.isValidID(identifier)) {
+			send_text(exchange, 400, "Identifiers must not contain commas, colons or line breaks, "
+					+ "and must not be \"self\" or \"skip\".");
+			return;
+		}
+		send_streamed_headers(exchange, "text/plain; charset=utf-8");
+		OutputStream cipher_text = exchange.getResponseBody();
+		new Rsa_Stream_Encryption_Operator(recipient_key).encrypt(exchange.getRequestBody(), cipher_text);
+		if (identifier != null) {
+			Rsa_Public_Key outgoing_key = new Rsa_Public_Key(public_key.getModulus(), public_key.getExponent(), identifier);
+			cipher_text.write((System.lineSeparator() + outgoing_key.toString()).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+	
+	private void handle_decrypt(HttpExchange exchange) throws IOException {
+		if (! require_method(exchange, "POST")) {
+			return;
+		}
+		InputStream cipher_text = new BufferedInputStream(exchange.getRequestBody());
+		if (has_packed_byte_marker(cipher_text)) {
+			send_streamed_headers(exchange, "application/octet-stream");
+			new Rsa_Stream_Decryption_Operator(private_key).decrypt(cipher_text, exchange.getResponseBody());
+		} else {
+			String cipher_line = new String(cipher_text.readAllBytes(), StandardCharsets.US_ASCII).split("\\R")[0].trim();
+			send_text(exchange, 200, new Rsa_Decryption_Operator(private_key, cipher_line).getPlainText());
+		}
+	}
+	
+	private boolean has_packed_byte_marker(InputStream cipher_text) throws IOException {
+		byte[] marker = Text_Encoding.PACKED_BYTES.getMarker().getBytes(StandardCharsets.US_ASCII);
+		cipher_text.mark(marker.length);
+		boolean marked = Arrays.equals(cipher_text.readNBytes(marker.length), marker);
+		cipher_text.reset();
+		return marked;
+	}
+	
+	private void handle_keys(HttpExchange exchange) throws IOException {
+		if (! require_method(exchange, "GET")) {
+			return;
+		}
+		String id = parse_query(exchange).get("id");
+		if (id == null) {
+			StringBuilder keys = new StringBuilder();
+			for (Rsa_Public_Key key : address_book.values()) {
+				keys.append(key.toString() + System.lineSeparator());
+			}
+			send_text(exchange, 200, keys.toString());
+		} else if (address_book.containsKey(id)) {
+			send_text(exchange, 200, address_book.get(id).toString());
+		} else {
+			send_text(exchange, 404, "No key stored for ID.");
+		}
+	}
+	
+	private void handle_metrics(HttpExchange exchange) throws IOException {
+		StringBuilder metrics = new StringBuilder();
+		for (String operation : operations) {
+			Latency_Histogram histogram = latencies.get(operation);
+			metrics.append(String.format("%s count=%d p50_us=%.1f p99_us=%.1f%n", operation, histogram.getCount(),
+					histogram.getPercentileNanos(50) / 1e3, histogram.getPercentileNanos(99) / 1e3));
+		}
+		send_text(exchange, 200, metrics.toString());
+		exchange.close();
+	}
+	
+	private boolean require_method(HttpExchange exchange, String method) throws IOException {
+		if (exchange.getRequestMethod().equals(method)) {
+			return true;
+		}
+		send_text(exchange, 405, "Use " + method + ".");
+		return false;
+	}
+	
+	private Map<String, String> parse_query(HttpExchange exchange) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null) {
+			return parameters;
+		}
+		for (String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator > 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+						URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return parameters;
+	}
+	
+	/**
+	 * Sends a 200 whose body is chunked, as its length is not known until it has been streamed.
+	 */
+	private void send_streamed_headers(HttpExchange exchange, String content_type) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", content_type);
+		exchange.sendResponseHeaders(200, 0);
+	}
+	
+	private void send_text(HttpExchange exchange, int status, String text) throws IOException {
+		byte[] body = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		exchange.getResponseBody().write(body);
+	}
+}
@@ -0,0 +1,61 @@
+package rsa_module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.utility.Decimal_Codec;
+import rsa_module.utility.Signature_Padding;
+
+/**
+ * Signs a message with the user's private key: the message's SHA-256 digest is encoded as in Signature_Padding and
+ * exponentiated with the private key. The signature is the marker "s1:" followed by that one unit as zero-padded
+ * decimal digits, the width of a cipher unit.
+ * Designed to be used in a single line as signature = new Rsa_Signing_Operator(args).getSignature()
+ * Individual objects intended to be lightweight but one-use.
+ * @author James Talbott
+ */
+public class Rsa_Signing_Operator extends Rsa_Operator {
+	
+	protected static final String signature_marker = "s1:";
+	
+	private static final int buffer_length = 64 * 1024;
+	
+	private final String signature;
+	
+	/**
+	 * @param privateKey The signer's private key.
+	 * @param message The message bytes.
+	 */
+	public Rsa_Signing_Operator(Rsa_Private_Key privateKey, byte[] message) {
+		this.signature = sign(privateKey, Signature_Padding.new_digest().digest(message));
+	}
+	
+	/**
+	 * Signs everything remaining in the input, reading it a buffer at a time. The stream is not closed.
+	 * @param privateKey The signer's private key.
+	 * @param message The message bytes.
+	 * @throws IOException If the stream fails.
+	 */
+	public Rsa_Signing_Operator(Rsa_Private_Key privateKey, InputStream message) throws IOException {
+		MessageDigest digest = Signature_Padding.new_digest();
+		byte[] buffer = new byte[buffer_length];
+		int length;
+		while ((length = message.read(buffer)) != -1) {
+			digest.update(buffer, 0, length);
+		}
+		this.signature = sign(privateKey, digest.digest());
+	}
+	
+	private String sign(Rsa_Private_Key privateKey, byte[] digest) {
+		BigInteger[] units = {Signature_Padding.encode(privateKey.getContext().getSignaturePadding(), digest)};
+		exponentiate_units(units, units.length, privateKey, Parallel_Execution.sequential());
+		return format_units(signature_marker, units, privateKey.getContext().getCipherUnitLength(), new Decimal_Codec());
+	}
+	
+	public String getSignature() {
+		return signature;
+	}
+}
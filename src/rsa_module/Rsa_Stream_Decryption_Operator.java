@@ -0,0 +1,121 @@
+package rsa_module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Decimal_Codec;
+
+/**
+ * Streaming counterpart of Rsa_Decryption_Operator for packed byte ciphertext too large to hold in memory.
+ * Reads one window of cipher units at a time and writes plaintext bytes as they are recovered, holding back only
+ * the most recent unit so that its padding can be removed once the end of the ciphertext is reached.
+ * Objects are one-use.
+ * @author James Talbott
+ */
+public class Rsa_Stream_Decryption_Operator extends Rsa_Operator {
+	
+	private Rsa_Private_Key privateKey;
+	
+	private int blockSize;
+	
+	private int cipherUnitLength;
+	
+	private boolean endOfCipherText = false;
+	
+	private int trailingBytesRead = 0;
+	
+	private final Decimal_Codec codec = new Decimal_Codec();
+	
+	public Rsa_Stream_Decryption_Operator(Rsa_Private_Key privateKey) {
+		this.privateKey = privateKey;
+		this.blockSize = privateKey.getContext().getPackedBlockSize();
+		this.cipherUnitLength = privateKey.getContext().getCipherUnitLength();
+	}
+	
+	/**
+	 * Decrypts the ciphertext line at the start of the input and writes the plaintext bytes to the output.
+	 * Neither stream is closed.
+	 * @param cipherText The ciphertext, starting with the packed byte marker.
+	 * @param plainText Receives the UTF-8 plaintext bytes.
+	 * @return Any text following the ciphertext line, such as an appended public key, or "" if there is none.
+	 * @throws IOException If either stream fails.
+	 */
+	public String decrypt(InputStream cipherText, OutputStream plainText) throws IOException {
+		read_marker(cipherText);
+		BigInteger[] numericUnits = new BigInteger[Rsa_Stream_Encryption_Operator.units_per_window];
+		byte[] cipherUnit = new byte[cipherUnitLength];
+		byte[] pendingUnit = new byte[blockSize];
+		boolean hasPendingUnit = false;
+		long totalUnits = 0;
+		int unitsRead = read_window(cipherText, numericUnits, cipherUnit);
+		while (unitsRead > 0) {
+			totalUnits += unitsRead;
+			exponentiate_units(numericUnits, unitsRead, privateKey);
+			for (int index = 0; index < unitsRead; index++) {
+				if (hasPendingUnit) {
+					plainText.write(pendingUnit);
+				}
+				Byte_Block_Packer.write_block(numericUnits[index], pendingUnit, 0, blockSize);
+				hasPendingUnit = true;
+			}
+			unitsRead = endOfCipherText ? 0 : read_window(cipherText, numericUnits, cipherUnit);
+		}
+		if (! hasPendingUnit) {
+			throw new IllegalArgumentException("Ciphertext contains no units.");
+		}
+		plainText.write(pendingUnit, 0, Byte_Block_Packer.unpadded_length(pendingUnit, blockSize));
+		Instrumentation.count_decryption(Text_Encoding.PACKED_BYTES.getMarker().length() + totalUnits * cipherUnitLength);
+		return read_trailing_text(cipherUnit, trailingBytesRead, cipherText);
+	}
+	
+	/**
+	 * Reads cipher units until the window is full or the ciphertext line ends.
+	 * When it ends, the bytes already read past it are left at the start of cipherUnit.
+	 * @return The number of units read into the window.
+	 */
+	private int read_window(InputStream cipherText, BigInteger[] numericUnits, byte[] cipherUnit) throws IOException {
+		int unitsRead = 0;
+		while (unitsRead < numericUnits.length) {
+			int bytesRead = cipherText.readNBytes(cipherUnit, 0, cipherUnitLength);
+			if (bytesRead == 0 || ! is_digit(cipherUnit[0])) {
+				endOfCipherText = true;
+				trailingBytesRead = bytesRead;
+				break;
+			}
+			numericUnits[unitsRead++] = parse_unit(cipherUnit, bytesRead);
+		}
+		return unitsRead;
+	}
+	
+	private void read_marker(InputStream cipherText) throws IOException {
+		byte[] expected = Text_Encoding.PACKED_BYTES.getMarker().getBytes(StandardCharsets.US_ASCII);
+		byte[] marker = cipherText.readNBytes(expected.length);
+		if (! Arrays.equals(marker, expected)) {
+			throw new IllegalArgumentException("Streaming decryption requires packed byte ciphertext.");
+		}
+	}
+	
+	private BigInteger parse_unit(byte[] cipherUnit, int length) {
+		if (length < cipherUnitLength) {
+			throw new IllegalArgumentException("Ciphertext ends with a truncated unit.");
+		}
+		return codec.parse(cipherUnit, 0, length);
+	}
+	
+	private boolean is_digit(byte character) {
+		return character >= '0' && character <= '9';
+	}
+	
+	private String read_trailing_text(byte[] cipherUnit, int bytesRead, InputStream cipherText) throws IOException {
+		String trailingText = new String(cipherUnit, 0, bytesRead, StandardCharsets.UTF_8)
+				+ new String(cipherText.readAllBytes(), StandardCharsets.UTF_8);
+		return trailingText.trim();
+	}
+}
@@ -0,0 +1,110 @@
+package rsa_module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Decimal_Codec;
+
+/**
+ * Streaming counterpart of Rsa_Encryption_Operator for inputs too large to hold in memory.
+ * Reads plaintext bytes one window of units at a time and writes the same packed byte ciphertext,
+ * marker included, that Rsa_Encryption_Operator produces for the equivalent String.
+ * Memory use is bounded by the window size regardless of input length.
+ * @author James Talbott
+ */
+public class Rsa_Stream_Encryption_Operator extends Rsa_Operator {
+	
+	protected static final int units_per_window = 256;
+	
+	private Rsa_Public_Key publicKey;
+	
+	private int blockSize;
+	
+	private BigInteger[] numericUnits = new BigInteger[units_per_window];
+	
+	private byte[] cipherUnit;
+	
+	private final Decimal_Codec codec = new Decimal_Codec();
+	
+	public Rsa_Stream_Encryption_Operator(Rsa_Public_Key publicKey) {
+		this(publicKey, publicKey.getContext().getCipherUnitLength());
+	}
+	
+	/**
+	 * Constructor for subclasses that write cipher units in another form.
+	 * @param publicKey The recipient's public key.
+	 * @param cipherUnitLength The number of bytes each written cipher unit takes.
+	 */
+	protected Rsa_Stream_Encryption_Operator(Rsa_Public_Key publicKey, int cipherUnitLength) {
+		this.publicKey = publicKey;
+		this.blockSize = publicKey.getContext().getPackedBlockSize();
+		this.cipherUnit = new byte[cipherUnitLength];
+	}
+	
+	/**
+	 * Encrypts everything remaining in the input and writes the ciphertext line to the output.
+	 * Neither stream is closed, so that callers may append further lines such as an outgoing key.
+	 * @param plainText The plaintext bytes, expected to be UTF-8.
+	 * @param cipherText Receives the ciphertext as ASCII digits.
+	 * @throws IOException If either stream fails.
+	 */
+	public void encrypt(InputStream plainText, OutputStream cipherText) throws IOException {
+		byte[] marker = Text_Encoding.PACKED_BYTES.getMarker().getBytes(StandardCharsets.US_ASCII);
+		cipherText.write(marker);
+		long units = encrypt_units(plainText, cipherText);
+		Instrumentation.count_encryption(marker.length + units * cipherUnit.length);
+	}
+	
+	/**
+	 * Encrypts everything remaining in the input one window at a time, writing each cipher unit with write_unit.
+	 * @return The number of cipher units written.
+	 */
+	protected long encrypt_units(InputStream plainText, OutputStream cipherText) throws IOException {
+		byte[] window = new byte[units_per_window * blockSize];
+		long unitsWritten = 0;
+		int bytesRead = plainText.readNBytes(window, 0, window.length);
+		while (bytesRead == window.length) {
+			unitsWritten += encrypt_window(window, bytesRead / blockSize, cipherText);
+			bytesRead = plainText.readNBytes(window, 0, window.length);
+		}
+		int fullUnits = bytesRead / blockSize;
+		unitsWritten += encrypt_window(window, fullUnits, cipherText);
+		unitsWritten += encrypt_window(pad_final_unit(window, fullUnits * blockSize, bytesRead), 1, cipherText);
+		return unitsWritten;
+	}
+	
+	private byte[] pad_final_unit(byte[] window, int start, int end) {
+		byte[] finalUnit = new byte[blockSize];
+		System.arraycopy(window, start, finalUnit, 0, end - start);
+		Byte_Block_Packer.pad_unit(finalUnit, end - start);
+		return finalUnit;
+	}
+	
+	private int encrypt_window(byte[] window, int numberOfUnits, OutputStream cipherText) throws IOException {
+		for (int index = 0; index < numberOfUnits; index++) {
+			numericUnits[index] = new BigInteger(1, window, index * blockSize, blockSize);
+		}
+		exponentiate_units(numericUnits, numberOfUnits, publicKey);
+		for (int index = 0; index < numberOfUnits; index++) {
+			write_unit(numericUnits[index], cipherUnit, cipherText);
+		}
+		return numberOfUnits;
+	}
+	
+	/**
+	 * Writes one encrypted unit as zero-padded decimal digits.
+	 * @param unit The encrypted unit.
+	 * @param cipherUnit A reusable buffer of the cipher unit length.
+	 * @param cipherText The output.
+	 */
+	protected void write_unit(BigInteger unit, byte[] cipherUnit, OutputStream cipherText) throws IOException {
+		codec.write(unit, cipherUnit.length, cipherUnit, 0);
+		cipherText.write(cipherUnit);
+	}
+}
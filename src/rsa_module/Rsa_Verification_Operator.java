@@ -0,0 +1,90 @@
+package rsa_module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.utility.Decimal_Codec;
+import rsa_module.utility.Signature_Padding;
+
+/**
+ * Checks a signature made by Rsa_Signing_Operator against a message and the signer's public key.
+ * A signature that is malformed, or was made for another message or by another key, is simply not valid, as is
+ * any signature checked against a key too small to sign.
+ * Designed to be used in a single line as valid = new Rsa_Verification_Operator(args).isValid()
+ * Individual objects intended to be lightweight but one-use.
+ * @author James Talbott
+ */
+public class Rsa_Verification_Operator extends Rsa_Operator {
+	
+	private static final int buffer_length = 64 * 1024;
+	
+	private final boolean valid;
+	
+	/**
+	 * @param publicKey The signer's public key.
+	 * @param message The message bytes.
+	 * @param signature The signature text.
+	 */
+	public Rsa_Verification_Operator(Rsa_Public_Key publicKey, byte[] message, String signature) {
+		this(publicKey, message, signature, Signature_Padding.new_digest());
+	}
+	
+	/**
+	 * Checks the signature of everything remaining in the input, reading it a buffer at a time. The stream is not closed.
+	 * @param publicKey The signer's public key.
+	 * @param message The message bytes.
+	 * @param signature The signature text.
+	 * @throws IOException If the stream fails.
+	 */
+	public Rsa_Verification_Operator(Rsa_Public_Key publicKey, InputStream message, String signature) throws IOException {
+		MessageDigest digest = Signature_Padding.new_digest();
+		byte[] buffer = new byte[buffer_length];
+		int length;
+		while ((length = message.read(buffer)) != -1) {
+			digest.update(buffer, 0, length);
+		}
+		this.valid = verify(publicKey, digest.digest(), signature);
+	}
+	
+	/**
+	 * For batches, which keep one digest per thread rather than creating one per message.
+	 */
+	Rsa_Verification_Operator(Rsa_Public_Key publicKey, byte[] message, String signature, MessageDigest digest) {
+		this.valid = verify(publicKey, digest.digest(message), signature);
+	}
+	
+	private boolean verify(Rsa_Public_Key publicKey, byte[] digest, String signature) {
+		BigInteger padding;
+		try {
+			padding = publicKey.getContext().getSignaturePadding();
+		} catch (IllegalArgumentException iae) {
+			//A modulus too small to hold the padding cannot have signed anything.
+			return false;
+		}
+		int cipherUnitLength = publicKey.getContext().getCipherUnitLength();
+		String marker = Rsa_Signing_Operator.signature_marker;
+		if (signature == null || signature.length() != marker.length() + cipherUnitLength || ! signature.startsWith(marker)) {
+			return false;
+		}
+		byte[] digits = signature.getBytes(StandardCharsets.ISO_8859_1);
+		BigInteger[] units;
+		try {
+			units = parse_units(digits, marker.length(), cipherUnitLength, cipherUnitLength, new Decimal_Codec());
+		} catch (IllegalArgumentException iae) {
+			return false;
+		}
+		if (units[0].compareTo(publicKey.getModulus()) >= 0) {
+			return false;
+		}
+		exponentiate_units(units, units.length, publicKey, Parallel_Execution.sequential());
+		return units[0].equals(Signature_Padding.encode(padding, digest));
+	}
+	
+	public boolean isValid() {
+		return valid;
+	}
+}
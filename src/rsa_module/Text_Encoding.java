@@ -0,0 +1,60 @@
+package rsa_module;
+
+/**
+ * The ways plaintext can be turned into ciphertext.
+ * Each encoding other than the original decimal one is marked at the start of the ciphertext,
+ * so that the decryption operator can tell which one to reverse.
+ * @author James Talbott
+ */
+public enum Text_Encoding {
+	
+	/**
+	 * The original encoding: each char becomes a zero-padded 4 digit decimal number, 
+	 * and units are cut at one digit less than the modulus's decimal length. Carries no marker.
+	 */
+	DECIMAL_CHARACTERS(""),
+	
+	/**
+	 * UTF-8 bytes packed directly into units of as many whole bytes as fit in (modulus bit length - 1) bits.
+	 */
+	PACKED_BYTES("v2:"),
+	
+	/**
+	 * UTF-8 bytes compressed with Deflater, then packed as in PACKED_BYTES, so that compressible text takes fewer units.
+	 * Encryption falls back to PACKED_BYTES when compression does not make the bytes smaller.
+	 */
+	DEFLATED_BYTES("v2z:"),
+	
+	/**
+	 * UTF-8 bytes encrypted with AES-GCM under a random key, of which only the AES key is RSA encrypted.
+	 * See Rsa_Hybrid_Encryption_Operator for the layout.
+	 */
+	HYBRID_AES_GCM("v3:");
+	
+	private final String marker;
+	
+	private Text_Encoding(String marker) {
+		this.marker = marker;
+	}
+	
+	public String getMarker() {
+		return marker;
+	}
+	
+	/**
+	 * Identifies the encoding used to produce a ciphertext from its leading marker.
+	 * @param cipherText A ciphertext line, with or without a marker.
+	 * @return The matching encoding, DECIMAL_CHARACTERS if no marker is present.
+	 */
+	public static Text_Encoding of(String cipherText) {
+		if (cipherText.startsWith(PACKED_BYTES.marker)) {
+			return PACKED_BYTES;
+		} else if (cipherText.startsWith(DEFLATED_BYTES.marker)) {
+			return DEFLATED_BYTES;
+		} else if (cipherText.startsWith(HYBRID_AES_GCM.marker)) {
+			return HYBRID_AES_GCM;
+		} else {
+			return DECIMAL_CHARACTERS;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package rsa_module;
+
+import java.math.BigInteger;
+import java.util.concurrent.RecursiveAction;
+
+import rsa_module.arithmetic.Exponentiation_Engine;
+import rsa_module.data_structures.Rsa_Key;
+
+/**
+ * Fork/join task that exponentiates a range of units in place, halving the range until it reaches the threshold.
+ * @author James Talbott
+ */
+class Unit_Exponentiation_Task extends RecursiveAction {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final BigInteger[] units;
+	
+	private final int start;
+	
+	private final int end;
+	
+	private final Rsa_Key key;
+	
+	private final Exponentiation_Engine engine;
+	
+	private final int threshold;
+	
+	Unit_Exponentiation_Task(BigInteger[] units, int start, int end, Rsa_Key key, Exponentiation_Engine engine, int threshold) {
+		this.units = units;
+		this.start = start;
+		this.end = end;
+		this.key = key;
+		this.engine = engine;
+		this.threshold = threshold;
+	}
+	
+	@Override
+	protected void compute() {
+		if (end - start <= threshold) {
+			for (int index = start; index < end; index++) {
+				units[index] = engine.exponentiate(key, units[index]);
+			}
+		} else {
+			int middle = (start + end) >>> 1;
+			invokeAll(new Unit_Exponentiation_Task(units, start, middle, key, engine, threshold),
+					new Unit_Exponentiation_Task(units, middle, end, key, engine, threshold));
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package rsa_module.arithmetic;
+
+import java.math.BigInteger;
+
+import rsa_module.data_structures.Rsa_Key;
+
+/**
+ * Exponentiates with the key's own BigInteger arithmetic: modPow, split by CRT when a private key knows its primes.
+ * The default engine.
+ * @author James Talbott
+ */
+public class Big_Integer_Engine implements Exponentiation_Engine {
+	
+	@Override
+	public BigInteger exponentiate(Rsa_Key key, BigInteger unit) {
+		return key.exponentiate(unit);
+	}
+}
@@ -0,0 +1,21 @@
+package rsa_module.arithmetic;
+
+import java.math.BigInteger;
+
+import rsa_module.data_structures.Rsa_Key;
+
+/**
+ * Raises units to a key's exponent modulo its modulus. Every operator exponentiates through the engine
+ * Rsa_Operator is set to use, so the arithmetic can be swapped without touching the operators.
+ * Implementations must be safe for concurrent use.
+ * @author James Talbott
+ */
+public interface Exponentiation_Engine {
+	
+	/**
+	 * @param key The key to exponentiate with.
+	 * @param unit A numeric unit smaller than the key's modulus.
+	 * @return The transformed unit.
+	 */
+	BigInteger exponentiate(Rsa_Key key, BigInteger unit);
+}
@@ -0,0 +1,231 @@
+package rsa_module.arithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rsa_module.data_structures.Rsa_Key;
+import rsa_module.data_structures.Rsa_Private_Key;
+
+/**
+ * Exponentiates on fixed width arrays of 64 bit limbs with Montgomery multiplication, instead of BigInteger, whose
+ * every multiply and mod allocates a new magnitude.
+ * Each key's moduli are prepared once and cached: the modulus itself, or for a private key with two known primes,
+ * p and q with the CRT exponents and coefficient. Each thread keeps one set of working arrays, grown only when
+ * a larger key is first seen. Apart from the BigInteger holding the result, a block is exponentiated without
+ * allocating.
+ * Private keys of three or more primes are left to the key's own BigInteger arithmetic.
+ * @author James Talbott
+ */
+public class Montgomery_Engine implements Exponentiation_Engine {
+	
+	/**
+	 * Prepared keys kept before the cache is emptied and refilled, to bound memory when many keys are in use.
+	 */
+	private static final int maximum_prepared_keys = 1024;
+	
+	private final Map<BigInteger, Prepared_Key> prepared_keys = new ConcurrentHashMap<BigInteger, Prepared_Key>();
+	
+	private final Map<BigInteger, Prepared_Crt_Key> prepared_crt_keys = new ConcurrentHashMap<BigInteger, Prepared_Crt_Key>();
+	
+	private final ThreadLocal<Working_Arrays> working_arrays = ThreadLocal.withInitial(() -> new Working_Arrays(0));
+	
+	/**
+	 * A key exponentiated by a single modPow under its modulus.
+	 */
+	private static class Prepared_Key {
+		
+		private final Montgomery_Modulus modulus;
+		
+		private final BigInteger exponent;
+		
+		private Prepared_Key(Rsa_Key key) {
+			this.modulus = new Montgomery_Modulus(key.getModulus());
+			this.exponent = key.getExponent();
+		}
+	}
+	
+	/**
+	 * A private key exponentiated mod p and mod q, then recombined as m2 + q * (qInv * (m1 - m2) mod p).
+	 */
+	private static class Prepared_Crt_Key {
+		
+		private final BigInteger exponent;
+		
+		private final int modulus_limbs;
+		
+		private final Montgomery_Modulus p;
+		
+		private final Montgomery_Modulus q;
+		
+		private final BigInteger dP;
+		
+		private final BigInteger dQ;
+		
+		private final long[] q_inverse;
+		
+		private Prepared_Crt_Key(Rsa_Private_Key key) {
+			this.exponent = key.getExponent();
+			this.modulus_limbs = (key.getModulus().bitLength() + 63) / 64;
+			this.p = new Montgomery_Modulus(key.getP());
+			this.q = new Montgomery_Modulus(key.getQ());
+			this.dP = key.getDP();
+			this.dQ = key.getDQ();
+			this.q_inverse = new long[p.limbs];
+			Montgomery_Modulus.to_limbs(key.getQInv(), q_inverse, p.limbs);
+		}
+	}
+	
+	/**
+	 * One thread's scratch space, sized for moduli of up to capacity limbs.
+	 */
+	private static class Working_Arrays {
+		
+		private final int capacity;
+		
+		private final long[] t;
+		
+		private final long[] unit;
+		
+		private final long[] chunk;
+		
+		private final long[] base;
+		
+		private final long[] result_p;
+		
+		private final long[] result_q;
+		
+		private final long[] product;
+		
+		private final long[][] table = new long[16][];
+		
+		private final byte[] bytes;
+		
+		private Working_Arrays(int capacity) {
+			this.capacity = capacity;
+			this.t = new long[capacity + 2];
+			this.unit = new long[capacity];
+			this.chunk = new long[capacity];
+			this.base = new long[capacity];
+			this.result_p = new long[capacity];
+			this.result_q = new long[capacity];
+			this.product = new long[2 * capacity];
+			for (int index = 0; index < table.length; index++) {
+				table[index] = new long[capacity];
+			}
+			this.bytes = new byte[16 * capacity];
+		}
+	}
+	
+	@Override
+	public BigInteger exponentiate(Rsa_Key key, BigInteger unit) {
+		if (key instanceof Rsa_Private_Key && ((Rsa_Private_Key) key).hasCrtParameters()) {
+			if (((Rsa_Private_Key) key).getPrimeCount() > 2) {
+				return key.exponentiate(unit);
+			}
+			return exponentiate_crt(prepare_crt((Rsa_Private_Key) key), unit);
+		}
+		return exponentiate(prepare(key), unit);
+	}
+	
+	private Prepared_Key prepare(Rsa_Key key) {
+		Prepared_Key prepared = prepared_keys.get(key.getModulus());
+		if (prepared == null || ! prepared.exponent.equals(key.getExponent())) {
+			if (prepared_keys.size() >= maximum_prepared_keys) {
+				prepared_keys.clear();
+			}
+			prepared = new Prepared_Key(key);
+			prepared_keys.put(key.getModulus(), prepared);
+		}
+		return prepared;
+	}
+	
+	private Prepared_Crt_Key prepare_crt(Rsa_Private_Key key) {
+		Prepared_Crt_Key prepared = prepared_crt_keys.get(key.getModulus());
+		if (prepared == null || ! prepared.exponent.equals(key.getExponent())) {
+			if (prepared_crt_keys.size() >= maximum_prepared_keys) {
+				prepared_crt_keys.clear();
+			}
+			prepared = new Prepared_Crt_Key(key);
+			prepared_crt_keys.put(key.getModulus(), prepared);
+		}
+		return prepared;
+	}
+	
+	private Working_Arrays working_arrays(int limbs) {
+		Working_Arrays arrays = working_arrays.get();
+		if (arrays.capacity < limbs) {
+			arrays = new Working_Arrays(limbs);
+			working_arrays.set(arrays);
+		}
+		return arrays;
+	}
+	
+	private BigInteger exponentiate(Prepared_Key key, BigInteger unit) {
+		Montgomery_Modulus modulus = key.modulus;
+		if (unit.signum() < 0 || unit.bitLength() > 64 * modulus.limbs) {
+			throw new IllegalArgumentException("Unit must be non-negative and no longer than the modulus.");
+		}
+		Working_Arrays arrays = working_arrays(modulus.limbs);
+		Montgomery_Modulus.to_limbs(unit, arrays.unit, modulus.limbs);
+		modulus.to_montgomery(arrays.unit, modulus.limbs, arrays.chunk, arrays.t, arrays.base);
+		modulus.power(arrays.base, key.exponent, arrays.table, arrays.t, arrays.result_p);
+		modulus.from_montgomery(arrays.result_p, arrays.t, arrays.result_p);
+		return Montgomery_Modulus.to_big_integer(arrays.result_p, modulus.limbs, arrays.bytes);
+	}
+	
+	/**
+	 * m1 is kept in Montgomery form mod p, so that multiplying the difference by qInv leaves h in ordinary form.
+	 */
+	private BigInteger exponentiate_crt(Prepared_Crt_Key key, BigInteger unit) {
+		Montgomery_Modulus p = key.p;
+		Montgomery_Modulus q = key.q;
+		int unit_limbs = key.modulus_limbs;
+		if (unit.signum() < 0 || unit.bitLength() > 64 * unit_limbs) {
+			throw new IllegalArgumentException("Unit must be non-negative and no longer than the modulus.");
+		}
+		Working_Arrays arrays = working_arrays(Math.max(unit_limbs, p.limbs + q.limbs));
+		Montgomery_Modulus.to_limbs(unit, arrays.unit, unit_limbs);
+		p.to_montgomery(arrays.unit, unit_limbs, arrays.chunk, arrays.t, arrays.base);
+		p.power(arrays.base, key.dP, arrays.table, arrays.t, arrays.result_p);
+		q.to_montgomery(arrays.unit, unit_limbs, arrays.chunk, arrays.t, arrays.base);
+		q.power(arrays.base, key.dQ, arrays.table, arrays.t, arrays.result_q);
+		q.from_montgomery(arrays.result_q, arrays.t, arrays.result_q);
+		p.to_montgomery(arrays.result_q, q.limbs, arrays.chunk, arrays.t, arrays.base);
+		p.subtract_mod(arrays.result_p, arrays.base);
+		p.multiply(arrays.result_p, key.q_inverse, arrays.t, arrays.result_p);
+		multiply_add(arrays.result_p, p.limbs, q.modulus, q.limbs, arrays.result_q, arrays.product);
+		return Montgomery_Modulus.to_big_integer(arrays.product, p.limbs + q.limbs, arrays.bytes);
+	}
+	
+	/**
+	 * product = a * b + c, where c has b_limbs limbs and the result fits in a_limbs + b_limbs.
+	 */
+	private static void multiply_add(long[] a, int a_limbs, long[] b, int b_limbs, long[] c, long[] product) {
+		System.arraycopy(c, 0, product, 0, b_limbs);
+		Arrays.fill(product, b_limbs, a_limbs + b_limbs, 0L);
+		for (int i = 0; i < a_limbs; i++) {
+			long carry = 0;
+			for (int j = 0; j < b_limbs; j++) {
+				long low = a[i] * b[j];
+				long high = Montgomery_Modulus.multiply_high(a[i], b[j]);
+				long sum = low + product[i + j];
+				if (Long.compareUnsigned(sum, low) < 0) {
+					high++;
+				}
+				long total = sum + carry;
+				if (Long.compareUnsigned(total, sum) < 0) {
+					high++;
+				}
+				product[i + j] = total;
+				carry = high;
+			}
+			for (int k = i + b_limbs; carry != 0 && k < a_limbs + b_limbs; k++) {
+				long total = product[k] + carry;
+				carry = Long.compareUnsigned(total, carry) < 0 ? 1 : 0;
+				product[k] = total;
+			}
+		}
+	}
+}
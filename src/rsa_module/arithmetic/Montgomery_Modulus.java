@@ -0,0 +1,287 @@
+package rsa_module.arithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * An odd modulus as 64 bit limbs, least significant first, with the values Montgomery multiplication needs:
+ * R = 2^(64 * limbs), R mod n, R^2 mod n and -n^-1 mod 2^64. Built once per modulus.
+ * Every method works on caller supplied arrays of at least limbs longs, and a product array t of at least
+ * limbs + 2 longs, and allocates nothing. Values are unsigned; limbs above the modulus's count are ignored.
+ * @author James Talbott
+ */
+class Montgomery_Modulus {
+	
+	private static final int window_bits = 4;
+	
+	/**
+	 * Exponents at most this long are applied bit by bit, as building a window table would cost more than it saves.
+	 */
+	private static final int maximum_short_exponent_bits = 64;
+	
+	final int limbs;
+	
+	final long[] modulus;
+	
+	private final long inverse;
+	
+	private final long[] r;
+	
+	private final long[] r_squared;
+	
+	private final long[] one;
+	
+	Montgomery_Modulus(BigInteger modulus) {
+		if (modulus.signum() <= 0 || ! modulus.testBit(0) || modulus.equals(BigInteger.ONE)) {
+			throw new IllegalArgumentException("Montgomery arithmetic needs an odd modulus greater than one.");
+		}
+		this.limbs = (modulus.bitLength() + 63) / 64;
+		this.modulus = new long[limbs];
+		to_limbs(modulus, this.modulus, limbs);
+		this.inverse = negative_inverse(this.modulus[0]);
+		BigInteger big_r = BigInteger.ONE.shiftLeft(64 * limbs);
+		this.r = new long[limbs];
+		to_limbs(big_r.mod(modulus), r, limbs);
+		this.r_squared = new long[limbs];
+		to_limbs(big_r.multiply(big_r).mod(modulus), r_squared, limbs);
+		this.one = new long[limbs];
+		one[0] = 1;
+	}
+	
+	/**
+	 * Newton's iteration doubles the number of correct low bits each step, from the 3 that any odd number gives.
+	 */
+	private static long negative_inverse(long odd) {
+		long inverse = odd;
+		for (int step = 0; step < 5; step++) {
+			inverse *= 2 - odd * inverse;
+		}
+		return -inverse;
+	}
+	
+	/**
+	 * Writes a non-negative BigInteger of at most 64 * limbs bits into limbs, a bit at a time, so nothing is allocated.
+	 */
+	static void to_limbs(BigInteger value, long[] out, int limbs) {
+		Arrays.fill(out, 0, limbs, 0L);
+		int bits = value.bitLength();
+		for (int bit = 0; bit < bits; bit++) {
+			if (value.testBit(bit)) {
+				out[bit >>> 6] |= 1L << (bit & 63);
+			}
+		}
+	}
+	
+	/**
+	 * @param bytes At least 8 * limbs bytes of scratch space.
+	 * @return The limbs as a BigInteger, which is the only allocation.
+	 */
+	static BigInteger to_big_integer(long[] value, int limbs, byte[] bytes) {
+		for (int limb = 0; limb < limbs; limb++) {
+			long word = value[limb];
+			int position = 8 * (limbs - limb) - 1;
+			for (int index = 0; index < 8; index++) {
+				bytes[position - index] = (byte) (word >>> (8 * index));
+			}
+		}
+		return new BigInteger(1, bytes, 0, 8 * limbs);
+	}
+	
+	/**
+	 * The high 64 bits of the unsigned 128 bit product.
+	 */
+	static long multiply_high(long a, long b) {
+		return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+	}
+	
+	/**
+	 * out = a * b * R^-1 mod n, by coarsely integrated operand scanning. Requires a * b < n * R, which holds when
+	 * either operand is below n and the other below R. out may be a or b.
+	 */
+	void multiply(long[] a, long[] b, long[] t, long[] out) {
+		Arrays.fill(t, 0, limbs + 2, 0L);
+		for (int i = 0; i < limbs; i++) {
+			long b_i = b[i];
+			long carry = 0;
+			for (int j = 0; j < limbs; j++) {
+				long low = a[j] * b_i;
+				long high = multiply_high(a[j], b_i);
+				long sum = low + t[j];
+				if (Long.compareUnsigned(sum, low) < 0) {
+					high++;
+				}
+				long total = sum + carry;
+				if (Long.compareUnsigned(total, sum) < 0) {
+					high++;
+				}
+				t[j] = total;
+				carry = high;
+			}
+			long top = t[limbs] + carry;
+			t[limbs + 1] = Long.compareUnsigned(top, carry) < 0 ? 1 : 0;
+			t[limbs] = top;
+			long m = t[0] * inverse;
+			long low = m * modulus[0];
+			carry = multiply_high(m, modulus[0]);
+			if (Long.compareUnsigned(low + t[0], low) < 0) {
+				carry++;
+			}
+			for (int j = 1; j < limbs; j++) {
+				low = m * modulus[j];
+				long high = multiply_high(m, modulus[j]);
+				long sum = low + t[j];
+				if (Long.compareUnsigned(sum, low) < 0) {
+					high++;
+				}
+				long total = sum + carry;
+				if (Long.compareUnsigned(total, sum) < 0) {
+					high++;
+				}
+				t[j - 1] = total;
+				carry = high;
+			}
+			top = t[limbs] + carry;
+			t[limbs - 1] = top;
+			t[limbs] = t[limbs + 1] + (Long.compareUnsigned(top, carry) < 0 ? 1 : 0);
+		}
+		if (t[limbs] != 0 || compare(t, modulus, limbs) >= 0) {
+			subtract(t, modulus, limbs);
+		}
+		System.arraycopy(t, 0, out, 0, limbs);
+	}
+	
+	private static int compare(long[] a, long[] b, int limbs) {
+		for (int limb = limbs - 1; limb >= 0; limb--) {
+			int comparison = Long.compareUnsigned(a[limb], b[limb]);
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * a -= b over the given limbs.
+	 * @return The borrow out of the top limb.
+	 */
+	private static long subtract(long[] a, long[] b, int limbs) {
+		long borrow = 0;
+		for (int limb = 0; limb < limbs; limb++) {
+			long difference = a[limb] - b[limb] - borrow;
+			borrow = (Long.compareUnsigned(a[limb], b[limb]) < 0 || (borrow != 0 && a[limb] == b[limb])) ? 1 : 0;
+			a[limb] = difference;
+		}
+		return borrow;
+	}
+	
+	/**
+	 * a = a + b mod n, for a and b below n.
+	 */
+	void add(long[] a, long[] b) {
+		long carry = 0;
+		for (int limb = 0; limb < limbs; limb++) {
+			long sum = a[limb] + b[limb];
+			long next_carry = Long.compareUnsigned(sum, a[limb]) < 0 ? 1 : 0;
+			long total = sum + carry;
+			if (Long.compareUnsigned(total, sum) < 0) {
+				next_carry = 1;
+			}
+			a[limb] = total;
+			carry = next_carry;
+		}
+		if (carry != 0 || compare(a, modulus, limbs) >= 0) {
+			subtract(a, modulus, limbs);
+		}
+	}
+	
+	/**
+	 * a = a - b mod n, for a and b below n.
+	 */
+	void subtract_mod(long[] a, long[] b) {
+		if (subtract(a, b, limbs) != 0) {
+			long carry = 0;
+			for (int limb = 0; limb < limbs; limb++) {
+				long sum = a[limb] + modulus[limb];
+				long next_carry = Long.compareUnsigned(sum, a[limb]) < 0 ? 1 : 0;
+				long total = sum + carry;
+				if (Long.compareUnsigned(total, sum) < 0) {
+					next_carry = 1;
+				}
+				a[limb] = total;
+				carry = next_carry;
+			}
+		}
+	}
+	
+	/**
+	 * out = x * R mod n, the Montgomery form of x mod n, for x of any number of limbs. x is read a modulus length
+	 * at a time from the top, by Horner's rule in Montgomery form: each chunk c becomes c * R mod n, and the value
+	 * so far is shifted by R with a multiplication by R^2.
+	 * @param chunk Scratch of at least limbs longs.
+	 */
+	void to_montgomery(long[] x, int x_limbs, long[] chunk, long[] t, long[] out) {
+		int chunks = Math.max(1, (x_limbs + limbs - 1) / limbs);
+		for (int index = chunks - 1; index >= 0; index--) {
+			int start = index * limbs;
+			int length = Math.max(0, Math.min(limbs, x_limbs - start));
+			System.arraycopy(x, start, chunk, 0, length);
+			Arrays.fill(chunk, length, limbs, 0L);
+			multiply(chunk, r_squared, t, chunk);
+			if (index == chunks - 1) {
+				System.arraycopy(chunk, 0, out, 0, limbs);
+			} else {
+				multiply(out, r_squared, t, out);
+				add(out, chunk);
+			}
+		}
+	}
+	
+	/**
+	 * out = a * R^-1 mod n, the ordinary value of a Montgomery form.
+	 */
+	void from_montgomery(long[] a, long[] t, long[] out) {
+		multiply(a, one, t, out);
+	}
+	
+	/**
+	 * out = base^exponent in Montgomery form, by left to right fixed windows of four bits, or bit by bit for short
+	 * exponents.
+	 * @param base The base in Montgomery form.
+	 * @param table Scratch of 16 arrays of at least limbs longs.
+	 */
+	void power(long[] base, BigInteger exponent, long[][] table, long[] t, long[] out) {
+		int bits = exponent.bitLength();
+		if (bits <= maximum_short_exponent_bits) {
+			System.arraycopy(r, 0, out, 0, limbs);
+			for (int bit = bits - 1; bit >= 0; bit--) {
+				multiply(out, out, t, out);
+				if (exponent.testBit(bit)) {
+					multiply(out, base, t, out);
+				}
+			}
+			return;
+		}
+		System.arraycopy(r, 0, table[0], 0, limbs);
+		System.arraycopy(base, 0, table[1], 0, limbs);
+		for (int index = 2; index < table.length; index++) {
+			multiply(table[index - 1], base, t, table[index]);
+		}
+		int windows = (bits + window_bits - 1) / window_bits;
+		for (int window = windows - 1; window >= 0; window--) {
+			int value = 0;
+			for (int bit = window_bits - 1; bit >= 0; bit--) {
+				value = (value << 1) | (exponent.testBit(window * window_bits + bit) ? 1 : 0);
+			}
+			if (window == windows - 1) {
+				System.arraycopy(table[value], 0, out, 0, limbs);
+			} else {
+				for (int squaring = 0; squaring < window_bits; squaring++) {
+					multiply(out, out, t, out);
+				}
+				if (value != 0) {
+					multiply(out, table[value], t, out);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package rsa_module.data_structures;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The header at the start of a binary ciphertext container. All fields are big-endian:
+ * 
+ * magic "RSAC" (4 bytes), format version (1), encoding (1), flags (2), key id (8), block size (4),
+ * block count (8), appended key length (4), appended key (UTF-8, variable).
+ * 
+ * Blocks follow the header directly, each exactly block size bytes, so block i starts at getLength() + i * block size.
+ * @author James Talbott
+ */
+public class Cipher_Container_Header {
+	
+	public static final int fixed_length = 32;
+	
+	public static final byte current_version = 1;
+	
+	public static final byte packed_bytes_encoding = 2;
+	
+	private static final byte[] magic = "RSAC".getBytes(StandardCharsets.US_ASCII);
+	
+	private static final int block_count_offset = 20;
+	
+	private final byte version;
+	
+	private final byte encoding;
+	
+	private final short flags;
+	
+	private final long keyID;
+	
+	private final int blockSize;
+	
+	private final long blockCount;
+	
+	private final String appendedKey;
+	
+	public Cipher_Container_Header(long keyID, int blockSize, long blockCount, String appendedKey) {
+		this(current_version, packed_bytes_encoding, (short) 0, keyID, blockSize, blockCount, appendedKey);
+	}
+	
+	private Cipher_Container_Header(byte version, byte encoding, short flags, long keyID, int blockSize,
+			long blockCount, String appendedKey) {
+		this.version = version;
+		this.encoding = encoding;
+		this.flags = flags;
+		this.keyID = keyID;
+		this.blockSize = blockSize;
+		this.blockCount = blockCount;
+		this.appendedKey = appendedKey;
+	}
+	
+	/**
+	 * Determines the full length of a header from its fixed part, checking that it describes a container this version can read.
+	 * @param fixedPart A buffer holding at least the first fixed_length bytes of the header, from position 0.
+	 * @return The length of the whole header in bytes.
+	 */
+	public static int read_length(ByteBuffer fixedPart) {
+		byte[] readMagic = new byte[magic.length];
+		fixedPart.get(0, readMagic);
+		if (! Arrays.equals(readMagic, magic)) {
+			throw new IllegalArgumentException("File is not a ciphertext container.");
+		}
+		if (fixedPart.get(magic.length) != current_version) {
+			throw new IllegalArgumentException("Unsupported ciphertext container version: " + fixedPart.get(magic.length));
+		}
+		return fixed_length + fixedPart.getInt(fixed_length - 4);
+	}
+	
+	/**
+	 * Reads a whole header.
+	 * @param header A buffer holding the whole header, from position 0.
+	 * @return The header.
+	 */
+	public static Cipher_Container_Header read(ByteBuffer header) {
+		int length = read_length(header);
+		header.position(magic.length);
+		byte version = header.get();
+		byte encoding = header.get();
+		short flags = header.getShort();
+		long keyID = header.getLong();
+		int blockSize = header.getInt();
+		long blockCount = header.getLong();
+		byte[] appendedKeyBytes = new byte[length - fixed_length];
+		header.getInt();
+		header.get(appendedKeyBytes);
+		String appendedKey = new String(appendedKeyBytes, StandardCharsets.UTF_8);
+		return new Cipher_Container_Header(version, encoding, flags, keyID, blockSize, blockCount, appendedKey);
+	}
+	
+	public ByteBuffer toByteBuffer() {
+		byte[] appendedKeyBytes = appendedKey.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer header = ByteBuffer.allocate(fixed_length + appendedKeyBytes.length);
+		header.put(magic).put(version).put(encoding).putShort(flags).putLong(keyID).putInt(blockSize)
+				.putLong(blockCount).putInt(appendedKeyBytes.length).put(appendedKeyBytes);
+		header.flip();
+		return header;
+	}
+	
+	/**
+	 * @return The offset of the block count field, so that a writer can fill it in once all blocks are written.
+	 */
+	public static int getBlockCountOffset() {
+		return block_count_offset;
+	}
+	
+	public int getLength() {
+		return fixed_length + appendedKey.getBytes(StandardCharsets.UTF_8).length;
+	}
+	
+	public byte getVersion() {
+		return version;
+	}
+	
+	public byte getEncoding() {
+		return encoding;
+	}
+	
+	public short getFlags() {
+		return flags;
+	}
+	
+	public long getKeyID() {
+		return keyID;
+	}
+	
+	public int getBlockSize() {
+		return blockSize;
+	}
+	
+	public long getBlockCount() {
+		return blockCount;
+	}
+	
+	public String getAppendedKey() {
+		return appendedKey;
+	}
+}
@@ -0,0 +1,95 @@
+package rsa_module.data_structures;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import rsa_module.utility.Byte_Block_Packer;
+import rsa_module.utility.Signature_Padding;
+
+/**
+ * Values derived from a key's modulus that the operators need for every message. 
+ * Built once per key on first use, then shared by every operator and thread using that key.
+ * @author James Talbott
+ */
+public class Key_Context {
+	
+	private final BigInteger modulus;
+	
+	private final int cipherUnitLength;
+	
+	private final int cipherBlockSize;
+	
+	private final long fingerprint;
+	
+	private int packedBlockSize = 0;
+	
+	private volatile BigInteger signaturePadding;
+	
+	public Key_Context(BigInteger modulus) {
+		this.modulus = modulus;
+		this.cipherUnitLength = modulus.toString().length();
+		this.cipherBlockSize = (modulus.bitLength() + 7) / 8;
+		this.fingerprint = calculate_fingerprint(ByteBuffer.wrap(modulus.toByteArray()));
+	}
+	
+	/**
+	 * Fingerprints a modulus from its big-endian two's complement bytes, as BigInteger.toByteArray gives them,
+	 * so that callers holding those bytes need not build the BigInteger.
+	 * @param modulus_bytes The bytes of the modulus, consumed.
+	 * @return The first 8 bytes of their SHA-256 digest.
+	 */
+	static long calculate_fingerprint(ByteBuffer modulus_bytes) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(modulus_bytes);
+			return ByteBuffer.wrap(digest.digest()).getLong();
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException("SHA-256 is unavailable.", nsae);
+		}
+	}
+	
+	/**
+	 * @return The number of decimal digits in the modulus, which is the width of every cipher unit.
+	 */
+	public int getCipherUnitLength() {
+		return cipherUnitLength;
+	}
+	
+	/**
+	 * @return The number of bytes needed to hold any value smaller than the modulus, which is the width of every binary cipher unit.
+	 */
+	public int getCipherBlockSize() {
+		return cipherBlockSize;
+	}
+	
+	/**
+	 * @return The first 8 bytes of the SHA-256 digest of the modulus, identifying the key pair it belongs to.
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * @return The number of plaintext bytes per unit in the packed byte encoding.
+	 */
+	public int getPackedBlockSize() {
+		if (packedBlockSize == 0) {
+			packedBlockSize = Byte_Block_Packer.block_size_in_bytes(modulus);
+		}
+		return packedBlockSize;
+	}
+	
+	/**
+	 * @return The signature encoding for this modulus with the digest left zero, built on first use.
+	 */
+	public BigInteger getSignaturePadding() {
+		BigInteger padding = signaturePadding;
+		if (padding == null) {
+			padding = Signature_Padding.padding(cipherBlockSize);
+			signaturePadding = padding;
+		}
+		return padding;
+	}
+}
@@ -0,0 +1,625 @@
+package rsa_module.data_structures;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary keystore holding the user's private key and an address book of public keys by ID.
+ * Saving a key appends one record rather than rewriting the file; a later record for the same ID supersedes
+ * an earlier one. Opening the store indexes record offsets in two Offset_Tables of primitive longs: one by a hash
+ * of the ID, confirmed against the ID in the record, and one by the fingerprint of the modulus, so that a key can
+ * be found without knowing its ID and a key already stored under another ID is recognized at once. Neither IDs
+ * nor keys are held per entry, so the indexes cost a few dozen bytes per record however large the store grows.
+ * A key's numbers are read from the file when it is looked up, and the most recently used keys are kept in a
+ * bounded cache.
+ * Lookups are safe from any thread, and saves are serialized.
+ * Once superseded records outnumber live ones, the file is compacted on a background thread by copying the
+ * live records to a new file and renaming it into place. Iterators fail with ConcurrentModificationException if
+ * a compaction moves the records while they run.
+ * File layout: the magic "RKS1", then records of payload length (int), CRC32 of the payload (int) and payload.
+ * A payload is the record kind (byte), the ID length (short), the ID in UTF-8, the number of values (byte),
+ * then each value's length (int) and big-endian two's complement bytes. A private key's values are its modulus,
+ * exponent and, when known, each of its prime factors. A torn record at the end of the file,
+ * left by a crash during an append, is discarded on open.
+ * Must be closed after use.
+ * @author James Talbott
+ */
+public class Key_Store extends AbstractMap<String, Rsa_Public_Key> implements Closeable {
+	
+	private static final byte[] magic = "RKS1".getBytes(StandardCharsets.US_ASCII);
+	
+	private static final int record_header_length = 8;
+	
+	private static final byte public_key_record = 1;
+	
+	private static final byte private_key_record = 2;
+	
+	private static final String private_key_id = "selfPrivate";
+	
+	private static final int minimum_dead_records_to_compact = 64;
+	
+	private static final int key_cache_capacity = 1024;
+	
+	private final Path path;
+	
+	/**
+	 * Record offsets by the hash of their ID, one entry per live ID. Guarded by this store's lock.
+	 */
+	private final Offset_Table id_index = new Offset_Table();
+	
+	/**
+	 * Record offsets by the fingerprint of their modulus. An entry may point to a superseded record, which lookups
+	 * ignore and compaction drops. Guarded by this store's lock.
+	 */
+	private final Offset_Table fingerprint_index = new Offset_Table();
+	
+	/**
+	 * The most recently used public keys by ID. Only written while holding this store's lock, so that it never
+	 * holds a superseded key, but read without it, so that cached lookups do not wait for a compaction.
+	 */
+	private final Map<String, Rsa_Public_Key> key_cache = Collections.synchronizedMap(
+			new LinkedHashMap<String, Rsa_Public_Key>(16, 0.75f, true) {
+				
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Rsa_Public_Key> eldest) {
+					return size() > key_cache_capacity;
+				}
+			});
+	
+	private final AtomicBoolean compaction_scheduled = new AtomicBoolean();
+	
+	private long private_key_offset = 0;
+	
+	private volatile Rsa_Private_Key private_key;
+	
+	private FileChannel channel;
+	
+	private long end;
+	
+	private long dead_records = 0;
+	
+	/**
+	 * Counts compactions, so that iterators can tell their offsets have moved.
+	 */
+	private long compactions = 0;
+	
+	/**
+	 * Opens the store, creating an empty one if the file does not exist, and indexes its records.
+	 * @param path The location of the store.
+	 * @throws IOException If the file cannot be read or written.
+	 * @throws IllegalArgumentException If the file is not a keystore.
+	 */
+	public Key_Store(Path path) throws IOException {
+		this.path = path.toAbsolutePath();
+		this.channel = open_channel(this.path);
+		try {
+			if (channel.size() == 0) {
+				channel.write(ByteBuffer.wrap(magic), 0);
+				channel.force(false);
+			}
+			build_index();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private static FileChannel open_channel(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+	}
+	
+	/**
+	 * Scans the file once, reading only each record's kind, ID and modulus. The file is read through a window on
+	 * the heap rather than mapped, so that a torn tail can be truncated away straight after.
+	 */
+	private void build_index() throws IOException {
+		long size = channel.size();
+		Scan_Window file = new Scan_Window(channel);
+		if (size < magic.length || ! Arrays.equals(read(file.bytes(0, magic.length), new byte[magic.length]), magic)) {
+			throw new IllegalArgumentException("File is not a keystore.");
+		}
+		long offset = magic.length;
+		CRC32 checksum = new CRC32();
+		while (offset + record_header_length <= size) {
+			ByteBuffer header = file.bytes(offset, record_header_length);
+			int payload_length = header.getInt();
+			int expected_checksum = header.getInt();
+			long payload_offset = offset + record_header_length;
+			if (payload_length < 4 || payload_offset + payload_length > size) {
+				break;
+			}
+			ByteBuffer payload = file.bytes(payload_offset, payload_length);
+			checksum.reset();
+			checksum.update(payload.duplicate());
+			if ((int) checksum.getValue() != expected_checksum) {
+				break;
+			}
+			index_record(payload, offset);
+			offset = payload_offset + payload_length;
+		}
+		if (offset < size) {
+			channel.truncate(offset);
+		}
+		end = offset;
+	}
+	
+	private static byte[] read(ByteBuffer buffer, byte[] destination) {
+		buffer.get(destination);
+		return destination;
+	}
+	
+	/**
+	 * A run of the file read into a reusable heap buffer, refilled from the channel as the scan moves past it.
+	 */
+	private static class Scan_Window {
+		
+		private static final int window_length = 1024 * 1024;
+		
+		private final FileChannel channel;
+		
+		private ByteBuffer buffer = ByteBuffer.allocate(window_length).limit(0);
+		
+		private long start = 0;
+		
+		private Scan_Window(FileChannel channel) {
+			this.channel = channel;
+		}
+		
+		/**
+		 * @return The given bytes of the file, positioned and limited to them. Only valid until the next call.
+		 */
+		private ByteBuffer bytes(long offset, int length) throws IOException {
+			if (offset < start || offset + length > start + buffer.limit()) {
+				if (length > buffer.capacity()) {
+					buffer = ByteBuffer.allocate(length);
+				}
+				buffer.clear();
+				start = offset;
+				while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) != -1) {
+					//Keep reading until the window is full or the file ends.
+				}
+				buffer.flip();
+				if (length > buffer.limit()) {
+					throw new IOException("Keystore ended inside a record.");
+				}
+			}
+			int position = (int) (offset - start);
+			return buffer.duplicate().position(position).limit(position + length);
+		}
+	}
+	
+	/**
+	 * Indexes a record by ID and, from the modulus bytes that follow the ID, by fingerprint.
+	 */
+	private void index_record(ByteBuffer payload, long offset) {
+		byte kind = payload.get();
+		byte[] id = new byte[payload.getShort()];
+		payload.get(id);
+		payload.get();
+		int modulus_length = payload.getInt();
+		long fingerprint = Key_Context.calculate_fingerprint(payload.limit(payload.position() + modulus_length));
+		index_record(kind, id, offset, fingerprint);
+	}
+	
+	private void index_record(byte kind, byte[] id, long offset, long fingerprint) {
+		if (kind == private_key_record) {
+			if (private_key_offset != 0) {
+				dead_records++;
+			}
+			private_key_offset = offset;
+			return;
+		}
+		if (id_index.put(id_hash(id), offset, stored -> id_matches(stored, id)) != 0) {
+			dead_records++;
+		}
+		fingerprint_index.put(fingerprint, offset, stored -> true);
+	}
+	
+	/**
+	 * FNV-1a over the ID's UTF-8 bytes. Two IDs may share a hash, so entries are always confirmed with id_matches.
+	 */
+	private static long id_hash(byte[] id) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte character : id) {
+			hash ^= character & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+	
+	/**
+	 * Reads the ID of the record at the offset and compares it with the given one.
+	 */
+	private boolean id_matches(long offset, byte[] id) {
+		ByteBuffer length = ByteBuffer.allocate(Short.BYTES);
+		read_fully(length, offset + record_header_length + 1);
+		if (length.getShort(0) != id.length) {
+			return false;
+		}
+		ByteBuffer stored = ByteBuffer.allocate(id.length);
+		read_fully(stored, offset + record_header_length + 1 + Short.BYTES);
+		return Arrays.equals(stored.array(), id);
+	}
+	
+	private long find(String id) {
+		byte[] id_bytes = id.getBytes(StandardCharsets.UTF_8);
+		return id_index.get(id_hash(id_bytes), stored -> id_matches(stored, id_bytes));
+	}
+	
+	/**
+	 * Looks up a public key, reading it from the file unless it is cached.
+	 */
+	@Override
+	public Rsa_Public_Key get(Object id) {
+		if (! (id instanceof String)) {
+			return null;
+		}
+		Rsa_Public_Key key = key_cache.get(id);
+		if (key != null) {
+			return key;
+		}
+		synchronized (this) {
+			long offset = find((String) id);
+			return offset == 0 ? null : load_public_key(offset);
+		}
+	}
+	
+	@Override
+	public boolean containsKey(Object id) {
+		if (! (id instanceof String)) {
+			return false;
+		}
+		if (key_cache.containsKey(id)) {
+			return true;
+		}
+		synchronized (this) {
+			return find((String) id) != 0;
+		}
+	}
+	
+	@Override
+	public synchronized int size() {
+		return id_index.size();
+	}
+	
+	/**
+	 * Appends a record for the key under the given ID, unless an identical key is already stored there.
+	 * @return The key previously stored under the ID, or null.
+	 */
+	@Override
+	public Rsa_Public_Key put(String id, Rsa_Public_Key key) {
+		Rsa_Public_Key previous = get(id);
+		if (previous != null && previous.equals((Rsa_Key) key)) {
+			return previous;
+		}
+		Rsa_Public_Key stored = new Rsa_Public_Key(key.getModulus(), key.getExponent(), id);
+		append_or_fail(public_key_record, id, stored, key.getModulus(), key.getExponent());
+		return previous;
+	}
+	
+	/**
+	 * Finds a stored public key with the same modulus as the given key, whatever its ID.
+	 * @param key The key to look for.
+	 * @return The ID the modulus is stored under, or null if it is not stored. A modulus stored under several IDs
+	 * by an earlier version is found under the ID it was last saved with.
+	 */
+	public String findID(Rsa_Key key) {
+		Rsa_Public_Key stored = getByFingerprint(key.getContext().getFingerprint());
+		if (stored == null || ! stored.getModulus().equals(key.getModulus())) {
+			return null;
+		}
+		return stored.getID();
+	}
+	
+	/**
+	 * Looks up a public key by the fingerprint of its modulus, reading it from the file on first use.
+	 * @param fingerprint A fingerprint as given by Key_Context.getFingerprint.
+	 * @return The key, or null if no stored modulus has the fingerprint.
+	 */
+	public synchronized Rsa_Public_Key getByFingerprint(long fingerprint) {
+		long offset = fingerprint_index.get(fingerprint, stored -> true);
+		if (offset == 0) {
+			return null;
+		}
+		Rsa_Public_Key key = (Rsa_Public_Key) parse_record(read_payload(offset));
+		byte[] id = key.getID().getBytes(StandardCharsets.UTF_8);
+		if (id_index.get(id_hash(id), stored -> stored == offset) == 0) {
+			return null;
+		}
+		key_cache.put(key.getID(), key);
+		return key;
+	}
+	
+	/**
+	 * @return The user's private key, or null if none has been stored.
+	 */
+	public Rsa_Private_Key getPrivateKey() {
+		Rsa_Private_Key key = private_key;
+		if (key == null) {
+			synchronized (this) {
+				if (private_key == null && private_key_offset != 0) {
+					private_key = (Rsa_Private_Key) parse_record(read_payload(private_key_offset));
+				}
+				key = private_key;
+			}
+		}
+		return key;
+	}
+	
+	/**
+	 * Appends a record replacing the user's private key.
+	 */
+	public void putPrivateKey(Rsa_Private_Key key) {
+		BigInteger[] primes = key.getPrimes();
+		BigInteger[] values = new BigInteger[2 + primes.length];
+		values[0] = key.getModulus();
+		values[1] = key.getExponent();
+		System.arraycopy(primes, 0, values, 2, primes.length);
+		append_or_fail(private_key_record, private_key_id, key, values);
+	}
+	
+	@Override
+	public Set<Map.Entry<String, Rsa_Public_Key>> entrySet() {
+		return new AbstractSet<Map.Entry<String, Rsa_Public_Key>>() {
+			
+			@Override
+			public Iterator<Map.Entry<String, Rsa_Public_Key>> iterator() {
+				long[] offsets;
+				long expected_compactions;
+				synchronized (Key_Store.this) {
+					offsets = id_index.offsets();
+					expected_compactions = compactions;
+				}
+				return new Iterator<Map.Entry<String, Rsa_Public_Key>>() {
+					
+					private int next = 0;
+					
+					@Override
+					public boolean hasNext() {
+						return next < offsets.length;
+					}
+					
+					@Override
+					public Map.Entry<String, Rsa_Public_Key> next() {
+						if (! hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Rsa_Public_Key key;
+						synchronized (Key_Store.this) {
+							if (compactions != expected_compactions) {
+								throw new ConcurrentModificationException("Keystore was compacted during iteration.");
+							}
+							key = load_public_key(offsets[next++]);
+						}
+						return new AbstractMap.SimpleImmutableEntry<String, Rsa_Public_Key>(key.getID(), key);
+					}
+				};
+			}
+			
+			@Override
+			public int size() {
+				return Key_Store.this.size();
+			}
+		};
+	}
+	
+	/**
+	 * Reads the public key at the offset and caches it. Must be called holding this store's lock.
+	 */
+	private Rsa_Public_Key load_public_key(long offset) {
+		Rsa_Public_Key key = (Rsa_Public_Key) parse_record(read_payload(offset));
+		key_cache.put(key.getID(), key);
+		return key;
+	}
+	
+	private ByteBuffer read_payload(long offset) {
+		ByteBuffer payload = ByteBuffer.allocate(payload_length(offset));
+		read_fully(payload, offset + record_header_length);
+		return payload.flip();
+	}
+	
+	private int payload_length(long offset) {
+		ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+		read_fully(length, offset);
+		return length.getInt(0);
+	}
+	
+	/**
+	 * Fills an empty buffer from the file, starting at the position.
+	 */
+	private void read_fully(ByteBuffer destination, long position) {
+		try {
+			while (destination.hasRemaining()) {
+				if (channel.read(destination, position + destination.position()) == -1) {
+					throw new IOException("Keystore ended inside a record.");
+				}
+			}
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+	
+	private static Rsa_Key parse_record(ByteBuffer payload) {
+		byte kind = payload.get();
+		byte[] id = new byte[payload.getShort()];
+		payload.get(id);
+		BigInteger[] values = new BigInteger[payload.get()];
+		for (int index = 0; index < values.length; index++) {
+			byte[] value = new byte[payload.getInt()];
+			payload.get(value);
+			values[index] = new BigInteger(value);
+		}
+		if (kind == private_key_record) {
+			if (values.length >= 4) {
+				return new Rsa_Private_Key(values[0], values[1], Arrays.copyOfRange(values, 2, values.length));
+			}
+			return new Rsa_Private_Key(values[0], values[1]);
+		}
+		return new Rsa_Public_Key(values[0], values[1], new String(id, StandardCharsets.UTF_8));
+	}
+	
+	private static ByteBuffer encode_record(byte kind, String id, BigInteger... values) {
+		byte[] id_bytes = id.getBytes(StandardCharsets.UTF_8);
+		byte[][] value_bytes = new byte[values.length][];
+		int payload_length = 1 + 2 + id_bytes.length + 1;
+		for (int index = 0; index < values.length; index++) {
+			value_bytes[index] = values[index].toByteArray();
+			payload_length += 4 + value_bytes[index].length;
+		}
+		ByteBuffer record = ByteBuffer.allocate(record_header_length + payload_length);
+		record.putInt(payload_length).putInt(0);
+		record.put(kind).putShort((short) id_bytes.length).put(id_bytes).put((byte) values.length);
+		for (byte[] value : value_bytes) {
+			record.putInt(value.length).put(value);
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(record.array(), record_header_length, payload_length);
+		record.putInt(4, (int) checksum.getValue());
+		return record.flip();
+	}
+	
+	private void append_or_fail(byte kind, String id, Rsa_Key key, BigInteger... values) {
+		try {
+			append(kind, id, key, values);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		schedule_compaction_if_needed();
+	}
+	
+	/**
+	 * Writes a record at the end of the file and forces it to disk before indexing and caching it.
+	 */
+	private synchronized void append(byte kind, String id, Rsa_Key key, BigInteger... values) throws IOException {
+		ByteBuffer encoded = encode_record(kind, id, values);
+		long offset = end;
+		long position = end;
+		while (encoded.hasRemaining()) {
+			position += channel.write(encoded, position);
+		}
+		channel.force(false);
+		end = position;
+		index_record(kind, id.getBytes(StandardCharsets.UTF_8), offset, key.getContext().getFingerprint());
+		if (kind == private_key_record) {
+			private_key = (Rsa_Private_Key) key;
+		} else {
+			key_cache.put(id, (Rsa_Public_Key) key);
+		}
+	}
+	
+	private void schedule_compaction_if_needed() {
+		if (should_compact() && compaction_scheduled.compareAndSet(false, true)) {
+			CompletableFuture.runAsync(() -> {
+				try {
+					compact();
+				} catch (IOException ioe) {
+					ioe.printStackTrace();
+				} finally {
+					compaction_scheduled.set(false);
+				}
+			});
+		}
+	}
+	
+	private synchronized boolean should_compact() {
+		return dead_records >= minimum_dead_records_to_compact && dead_records > id_index.size();
+	}
+	
+	/**
+	 * Rewrites the file with only the live records, in their existing order, then renames it over the store.
+	 * Lookups of cached keys are not blocked while this runs.
+	 */
+	public synchronized void compact() throws IOException {
+		if (! channel.isOpen()) {
+			return;
+		}
+		long[] live_offsets = id_index.offsets();
+		if (private_key_offset != 0) {
+			live_offsets = Arrays.copyOf(live_offsets, live_offsets.length + 1);
+			live_offsets[live_offsets.length - 1] = private_key_offset;
+		}
+		Arrays.sort(live_offsets);
+		long[] new_offsets = new long[live_offsets.length];
+		Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try (FileChannel compacted = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+			long position = compacted.write(ByteBuffer.wrap(magic), 0);
+			for (int record = 0; record < new_offsets.length; record++) {
+				new_offsets[record] = position;
+				position = copy_record(live_offsets[record], compacted, position);
+			}
+			compacted.force(false);
+		} catch (IOException ioe) {
+			Files.deleteIfExists(temporary);
+			throw ioe;
+		}
+		move_into_place(temporary);
+		id_index.remap(live_offsets, new_offsets);
+		fingerprint_index.remap(live_offsets, new_offsets);
+		if (private_key_offset != 0) {
+			private_key_offset = new_offsets[Arrays.binarySearch(live_offsets, private_key_offset)];
+		}
+		compactions++;
+		channel.close();
+		channel = open_channel(path);
+		end = channel.size();
+		dead_records = 0;
+	}
+	
+	/**
+	 * Copies one record to the new file.
+	 * @return The position after the copied record.
+	 */
+	private long copy_record(long offset, FileChannel destination, long position) throws IOException {
+		long length = record_header_length + payload_length(offset);
+		long copied = 0;
+		while (copied < length) {
+			copied += channel.transferTo(offset + copied, length - copied, destination.position(position + copied));
+		}
+		return position + length;
+	}
+	
+	private void move_into_place(Path temporary) throws IOException {
+		try {
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException amnse) {
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * @return The number of records in the file that have been superseded by a later record.
+	 */
+	public synchronized long getDeadRecordCount() {
+		return dead_records;
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,155 @@
+package rsa_module.data_structures;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * An open-addressing hash table from 64-bit keys to file offsets, held in two parallel long arrays so that it costs
+ * the same 16 bytes per slot however many entries it holds, with no object per entry.
+ * A key may be a hash of something longer, such as an ID, and so may be shared by several entries. Lookups and
+ * puts therefore take a test of the offset that confirms an entry is the one wanted, for example by reading the
+ * record it points to. Offsets must be positive; a zero offset marks an empty slot.
+ * Not thread-safe.
+ * @author James Talbott
+ */
+final class Offset_Table {
+	
+	private static final int minimum_capacity = 16;
+	
+	private long[] keys;
+	
+	private long[] offsets;
+	
+	private int size = 0;
+	
+	Offset_Table() {
+		this(minimum_capacity);
+	}
+	
+	private Offset_Table(int capacity) {
+		keys = new long[capacity];
+		offsets = new long[capacity];
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * @param key The key to look up.
+	 * @param matches Confirms that an entry under the key is the one wanted.
+	 * @return The offset of the first confirmed entry, or 0 if there is none.
+	 */
+	long get(long key, LongPredicate matches) {
+		int mask = offsets.length - 1;
+		for (int slot = slot_of(key, mask); offsets[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == key && matches.test(offsets[slot])) {
+				return offsets[slot];
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Replaces the offset of the first confirmed entry under the key, or adds an entry if there is none.
+	 * @param key The key.
+	 * @param offset The new offset, which must be positive.
+	 * @param matches Confirms that an existing entry under the key is the one to replace.
+	 * @return The offset replaced, or 0 if an entry was added.
+	 */
+	long put(long key, long offset, LongPredicate matches) {
+		if (offset <= 0) {
+			throw new IllegalArgumentException("Offsets must be positive.");
+		}
+		int mask = offsets.length - 1;
+		int slot = slot_of(key, mask);
+		for (; offsets[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == key && matches.test(offsets[slot])) {
+				long replaced = offsets[slot];
+				offsets[slot] = offset;
+				return replaced;
+			}
+		}
+		keys[slot] = key;
+		offsets[slot] = offset;
+		size++;
+		if (size * 2 > offsets.length) {
+			resize(offsets.length * 2);
+		}
+		return 0;
+	}
+	
+	/**
+	 * @return A copy of every offset in the table, in no particular order.
+	 */
+	long[] offsets() {
+		long[] copy = new long[size];
+		int next = 0;
+		for (long offset : offsets) {
+			if (offset != 0) {
+				copy[next++] = offset;
+			}
+		}
+		return copy;
+	}
+	
+	/**
+	 * Moves every entry to a new offset, as after the file has been compacted. Entries whose offset is not among
+	 * the old offsets are dropped.
+	 * @param old_offsets The offsets before, in ascending order.
+	 * @param new_offsets The offset each of them moved to.
+	 */
+	void remap(long[] old_offsets, long[] new_offsets) {
+		long[] old_keys = keys;
+		long[] old_slots = offsets;
+		int capacity = minimum_capacity;
+		while (capacity < old_offsets.length * 2) {
+			capacity *= 2;
+		}
+		keys = new long[capacity];
+		offsets = new long[capacity];
+		size = 0;
+		for (int slot = 0; slot < old_slots.length; slot++) {
+			if (old_slots[slot] != 0) {
+				int found = Arrays.binarySearch(old_offsets, old_slots[slot]);
+				if (found >= 0) {
+					insert(old_keys[slot], new_offsets[found]);
+				}
+			}
+		}
+	}
+	
+	private void resize(int capacity) {
+		long[] old_keys = keys;
+		long[] old_slots = offsets;
+		keys = new long[capacity];
+		offsets = new long[capacity];
+		size = 0;
+		for (int slot = 0; slot < old_slots.length; slot++) {
+			if (old_slots[slot] != 0) {
+				insert(old_keys[slot], old_slots[slot]);
+			}
+		}
+	}
+	
+	private void insert(long key, long offset) {
+		int mask = offsets.length - 1;
+		int slot = slot_of(key, mask);
+		while (offsets[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		offsets[slot] = offset;
+		size++;
+	}
+	
+	/**
+	 * Keys may be hashes with poor low bits, so they are mixed before being reduced to a slot.
+	 */
+	private static int slot_of(long key, int mask) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key & mask;
+	}
+}
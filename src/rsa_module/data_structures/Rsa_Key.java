@@ -11,14 +11,39 @@ public abstract class Rsa_Key {
 	
 	private BigInteger exponent;
 	
+	private volatile Key_Context context;
+	
 	public Rsa_Key(BigInteger modulus, BigInteger exponent) {
 		this.modulus = modulus;
 		this.exponent = exponent;
 	}
 	
 	public Rsa_Key(String key) {
-		this.modulus = new BigInteger(key.substring(key.indexOf(':') + 1, key.indexOf(',')));
-		this.exponent = new BigInteger(key.substring(key.indexOf(',') + 1));
+		String[] fields = key_fields(key);
+		this.modulus = new BigInteger(fields[0]);
+		this.exponent = new BigInteger(fields[1]);
+	}
+	
+	/**
+	 * Splits the text form of a key, "ID:modulus,exponent[,...]", into its comma separated numeric fields.
+	 * @param key The text form of the key.
+	 * @return The numeric fields in order, trimmed of whitespace.
+	 */
+	protected static String[] key_fields(String key) {
+		String[] fields = key.substring(key.indexOf(':') + 1).split(",");
+		for (int index = 0; index < fields.length; index++) {
+			fields[index] = fields[index].trim();
+		}
+		return fields;
+	}
+	
+	/**
+	 * Raises a single numeric unit to this key's exponent modulo this key's modulus.
+	 * @param unit A numeric unit smaller than the modulus.
+	 * @return The transformed unit.
+	 */
+	public BigInteger exponentiate(BigInteger unit) {
+		return unit.modPow(exponent, modulus);
 	}
 	
 	public BigInteger getModulus() {
@@ -29,6 +54,19 @@ public abstract class Rsa_Key {
 		return exponent;
 	}
 	
+	/**
+	 * Getter for the values derived from this key's modulus, building them on first use.
+	 * @return The cached context.
+	 */
+	public Key_Context getContext() {
+		Key_Context cached = context;
+		if (cached == null) {
+			cached = new Key_Context(modulus);
+			context = cached;
+		}
+		return cached;
+	}
+	
 	@Override
 	public boolean equals(Object o) {
 		if (o instanceof Rsa_Key) {
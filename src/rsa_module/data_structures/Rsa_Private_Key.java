@@ -4,24 +4,203 @@
 package rsa_module.data_structures;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 /**
  * A Class to represent an RSA Private Key, containing a modulus value and exponent value implemented with BigInteger.
+ * Keys made by Key_Maker also carry the prime factors of the modulus and their Chinese Remainder Theorem values,
+ * which allow exponentiation to be split into one smaller operation per prime. Keys without them fall back to a full modPow.
+ * A modulus of more than two primes keeps p, q and their values as for two, and each further prime r_i has its own
+ * exponent d_i and coefficient t_i, the inverse of the product of the primes before it mod r_i, as in PKCS #1.
  * @author James Talbott
  */
 public class Rsa_Private_Key extends Rsa_Key {
 	
+	private static final int number_of_crt_fields = 5;
+	
+	private static final int number_of_other_prime_fields = 3;
+	
+	private BigInteger p;
+	
+	private BigInteger q;
+	
+	private BigInteger dP;
+	
+	private BigInteger dQ;
+	
+	private BigInteger qInv;
+	
+	private BigInteger[] otherPrimes = new BigInteger[0];
+	
+	private BigInteger[] otherExponents = new BigInteger[0];
+	
+	private BigInteger[] otherCoefficients = new BigInteger[0];
+	
+	/**
+	 * The product of the primes before each further prime, which its recombined value is scaled by.
+	 */
+	private BigInteger[] otherProducts = new BigInteger[0];
+	
 	public Rsa_Private_Key(BigInteger modulus, BigInteger exponent) {
 		super(modulus, exponent);
 	}
 	
+	/**
+	 * Constructor for a key whose prime factors are known. The CRT exponents and coefficient are derived here.
+	 * @param modulus The new key's modulus, equal to p * q.
+	 * @param exponent The new key's exponent.
+	 * @param p The first prime factor of the modulus.
+	 * @param q The second prime factor of the modulus.
+	 */
+	public Rsa_Private_Key(BigInteger modulus, BigInteger exponent, BigInteger p, BigInteger q) {
+		this(modulus, exponent, new BigInteger[] {p, q});
+	}
+	
+	/**
+	 * Constructor for a key whose modulus is the product of two or more known primes.
+	 * The CRT exponents and coefficients are derived here.
+	 * @param modulus The new key's modulus, equal to the product of the primes.
+	 * @param exponent The new key's exponent.
+	 * @param primes The distinct prime factors of the modulus, p and q first.
+	 */
+	public Rsa_Private_Key(BigInteger modulus, BigInteger exponent, BigInteger[] primes) {
+		super(modulus, exponent);
+		if (primes.length < 2) {
+			throw new IllegalArgumentException("A key needs at least two prime factors.");
+		}
+		this.p = primes[0];
+		this.q = primes[1];
+		this.dP = exponent.mod(p.subtract(BigInteger.ONE));
+		this.dQ = exponent.mod(q.subtract(BigInteger.ONE));
+		this.qInv = q.modInverse(p);
+		int others = primes.length - 2;
+		otherPrimes = Arrays.copyOfRange(primes, 2, primes.length);
+		otherExponents = new BigInteger[others];
+		otherCoefficients = new BigInteger[others];
+		otherProducts = products_before(p, q, otherPrimes);
+		for (int index = 0; index < others; index++) {
+			otherExponents[index] = exponent.mod(otherPrimes[index].subtract(BigInteger.ONE));
+			otherCoefficients[index] = otherProducts[index].modInverse(otherPrimes[index]);
+		}
+	}
+	
+	/**
+	 * Alternate constructor for reading a key from a file.
+	 * @param key The text form of the key, formatted "ID:modulus,exponent" or "ID:modulus,exponent,p,q,dP,dQ,qInv",
+	 * followed by "r_i,d_i,t_i" for each further prime.
+	 */
 	public Rsa_Private_Key(String key) {
 		super(key);
+		String[] fields = key_fields(key);
+		if (fields.length >= 2 + number_of_crt_fields && (fields.length - 2 - number_of_crt_fields) % number_of_other_prime_fields == 0) {
+			this.p = new BigInteger(fields[2]);
+			this.q = new BigInteger(fields[3]);
+			this.dP = new BigInteger(fields[4]);
+			this.dQ = new BigInteger(fields[5]);
+			this.qInv = new BigInteger(fields[6]);
+			int others = (fields.length - 2 - number_of_crt_fields) / number_of_other_prime_fields;
+			otherPrimes = new BigInteger[others];
+			otherExponents = new BigInteger[others];
+			otherCoefficients = new BigInteger[others];
+			for (int index = 0; index < others; index++) {
+				int field = 2 + number_of_crt_fields + index * number_of_other_prime_fields;
+				otherPrimes[index] = new BigInteger(fields[field]);
+				otherExponents[index] = new BigInteger(fields[field + 1]);
+				otherCoefficients[index] = new BigInteger(fields[field + 2]);
+			}
+			otherProducts = products_before(p, q, otherPrimes);
+		}
 	}
 	
+	private static BigInteger[] products_before(BigInteger p, BigInteger q, BigInteger[] otherPrimes) {
+		BigInteger[] products = new BigInteger[otherPrimes.length];
+		BigInteger product = p.multiply(q);
+		for (int index = 0; index < otherPrimes.length; index++) {
+			products[index] = product;
+			product = product.multiply(otherPrimes[index]);
+		}
+		return products;
+	}
+	
+	public boolean hasCrtParameters() {
+		return p != null;
+	}
+	
+	public BigInteger getP() {
+		return p;
+	}
+	
+	public BigInteger getQ() {
+		return q;
+	}
+	
+	public BigInteger getDP() {
+		return dP;
+	}
+	
+	public BigInteger getDQ() {
+		return dQ;
+	}
+	
+	public BigInteger getQInv() {
+		return qInv;
+	}
+	
+	/**
+	 * @return The number of prime factors of the modulus, or 0 if they are not known.
+	 */
+	public int getPrimeCount() {
+		return hasCrtParameters() ? 2 + otherPrimes.length : 0;
+	}
+	
+	/**
+	 * @return Every prime factor of the modulus, p and q first, or an empty array if they are not known.
+	 */
+	public BigInteger[] getPrimes() {
+		if (! hasCrtParameters()) {
+			return new BigInteger[0];
+		}
+		BigInteger[] primes = new BigInteger[getPrimeCount()];
+		primes[0] = p;
+		primes[1] = q;
+		System.arraycopy(otherPrimes, 0, primes, 2, otherPrimes.length);
+		return primes;
+	}
+	
+	/**
+	 * Exponentiation by CRT recombination when the prime factors are known, otherwise a full modPow.
+	 * The result mod p * q is found first, then extended by Garner's method one further prime at a time.
+	 */
+	@Override
+	public BigInteger exponentiate(BigInteger unit) {
+		if (! hasCrtParameters()) {
+			return super.exponentiate(unit);
+		}
+		BigInteger m1 = unit.modPow(dP, p);
+		BigInteger m2 = unit.modPow(dQ, q);
+		BigInteger h = qInv.multiply(m1.subtract(m2)).mod(p);
+		BigInteger result = m2.add(h.multiply(q));
+		for (int index = 0; index < otherPrimes.length; index++) {
+			BigInteger mi = unit.modPow(otherExponents[index], otherPrimes[index]);
+			h = otherCoefficients[index].multiply(mi.subtract(result)).mod(otherPrimes[index]);
+			result = result.add(h.multiply(otherProducts[index]));
+		}
+		return result;
+	}
+	
+	/**
+	 * toString is overridden with specific syntax to support file read operations.
+	 */
 	@Override
 	public String toString() {
-		return getModulus().toString() + "," + getExponent().toString();
+		String key = getModulus().toString() + "," + getExponent().toString();
+		if (hasCrtParameters()) {
+			key += "," + p.toString() + "," + q.toString() + "," + dP.toString() + "," + dQ.toString() + "," + qInv.toString();
+			for (int index = 0; index < otherPrimes.length; index++) {
+				key += "," + otherPrimes[index] + "," + otherExponents[index] + "," + otherCoefficients[index];
+			}
+		}
+		return key;
 	}
 	
 	@Override
@@ -48,6 +48,21 @@ public class Rsa_Public_Key extends Rsa_Key{
 		return ID;
 	}
 	
+	/**
+	 * Checks an ID that is to be written into a key's text form. IDs must not contain the commas, colons or line
+	 * breaks that separate that form, and must not be "self", which names the user's own key, or "skip".
+	 * @param ID The ID to check.
+	 * @return True if the ID may be given to a public key that is sent to others.
+	 */
+	public static boolean isValidID(String ID) {
+		return ! ID.equals("skip") && 
+				! ID.equals("self") && 
+				ID.indexOf(',') == -1 && 
+				ID.indexOf(':') == -1 && 
+				ID.indexOf('\n') == -1 && 
+				ID.indexOf('\r') == -1;
+	}
+	
 	/**
 	 * toString is overridden with specific syntax to support file read operations.
 	 */
@@ -0,0 +1,117 @@
+package rsa_module.instrumentation;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Times the stages of the hot paths and counts their work, feeding JFR Stage_Events and the Rsa_Metrics MBean.
+ * Enabled by starting the JVM with -Drsa_module.instrumentation=true, which also registers the MBean as
+ * rsa_module:type=Metrics. The switch is a static final, so when it is off every call here is a constant branch
+ * that the JIT removes, and the hot paths pay nothing for being instrumented.
+ * Stages are timed by pairing begin and end:
+ * Stage_Event event = Instrumentation.begin(Stage.EXPONENTIATION); ... Instrumentation.end(event, units, bytes);
+ * @author James Talbott
+ */
+public final class Instrumentation {
+	
+	public static final String enabling_property = "rsa_module.instrumentation";
+	
+	public static final String mbean_name = "rsa_module:type=Metrics";
+	
+	public static final boolean enabled = Boolean.getBoolean(enabling_property);
+	
+	private static final Rsa_Metrics metrics = new Rsa_Metrics();
+	
+	static {
+		if (enabled) {
+			register_mbean();
+		}
+	}
+	
+	private Instrumentation() {
+	}
+	
+	private static void register_mbean() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(mbean_name));
+		} catch (JMException jme) {
+			jme.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Starts timing a stage.
+	 * @return The event to pass to end, or null when instrumentation is disabled.
+	 */
+	public static Stage_Event begin(Stage stage) {
+		if (! enabled) {
+			return null;
+		}
+		Stage_Event event = new Stage_Event(stage);
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * Finishes timing a stage, recording its latency and committing its JFR event if a recording wants it.
+	 * @param event The event begin returned.
+	 * @param units The number of blocks, characters or primes the stage handled.
+	 * @param bytes The number of bytes the stage handled.
+	 */
+	public static void end(Stage_Event event, long units, long bytes) {
+		if (! enabled) {
+			return;
+		}
+		event.end();
+		metrics.record_stage(event.stageValue, System.nanoTime() - event.startNanos);
+		if (event.shouldCommit()) {
+			event.units = units;
+			event.bytes = bytes;
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Counts a whole message encrypted. Every operator that encrypts a whole message calls this once at its end.
+	 * @param bytes The size of its ciphertext in bytes.
+	 */
+	public static void count_encryption(long bytes) {
+		if (enabled) {
+			metrics.count_encryption(bytes);
+		}
+	}
+	
+	/**
+	 * Counts a whole message decrypted. Every operator that decrypts a whole message calls this once at its end.
+	 * @param bytes The size of its ciphertext in bytes.
+	 */
+	public static void count_decryption(long bytes) {
+		if (enabled) {
+			metrics.count_decryption(bytes);
+		}
+	}
+	
+	/**
+	 * Counts units exponentiated, by any operator.
+	 */
+	public static void count_blocks(long blocks) {
+		if (enabled) {
+			metrics.count_blocks(blocks);
+		}
+	}
+	
+	public static void count_key_generated() {
+		if (enabled) {
+			metrics.count_key_generated();
+		}
+	}
+	
+	/**
+	 * @return The metrics, which stay at zero when instrumentation is disabled.
+	 */
+	public static Rsa_Metrics getMetrics() {
+		return metrics;
+	}
+}
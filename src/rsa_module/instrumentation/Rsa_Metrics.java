@@ -0,0 +1,143 @@
+package rsa_module.instrumentation;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import rsa_module.utility.Latency_Histogram;
+
+/**
+ * Counters and per-stage latency histograms for the whole process, exposed over JMX as an MXBean.
+ * Updates are lock-free, so many operator threads can record at once.
+ * @author James Talbott
+ */
+public class Rsa_Metrics implements Rsa_Metrics_MXBean {
+	
+	private final LongAdder messages_encrypted = new LongAdder();
+	
+	private final LongAdder messages_decrypted = new LongAdder();
+	
+	private final LongAdder blocks = new LongAdder();
+	
+	private final LongAdder cipher_text_bytes = new LongAdder();
+	
+	private final LongAdder keys_generated = new LongAdder();
+	
+	private final AtomicReferenceArray<Latency_Histogram> stage_latencies = new AtomicReferenceArray<Latency_Histogram>(Stage.values().length);
+	
+	/**
+	 * A summary of one stage's latency histogram, in microseconds.
+	 */
+	public static class Stage_Latency {
+		
+		private final long count;
+		
+		private final double meanMicros;
+		
+		private final double medianMicros;
+		
+		private final double p99Micros;
+		
+		private Stage_Latency(Latency_Histogram histogram) {
+			this.count = histogram.getCount();
+			this.meanMicros = histogram.getMeanNanos() / 1e3;
+			this.medianMicros = histogram.getPercentileNanos(50) / 1e3;
+			this.p99Micros = histogram.getPercentileNanos(99) / 1e3;
+		}
+		
+		public long getCount() {
+			return count;
+		}
+		
+		public double getMeanMicros() {
+			return meanMicros;
+		}
+		
+		public double getMedianMicros() {
+			return medianMicros;
+		}
+		
+		public double getP99Micros() {
+			return p99Micros;
+		}
+	}
+	
+	public Rsa_Metrics() {
+		reset();
+	}
+	
+	void record_stage(Stage stage, long nanos) {
+		stage_latencies.get(stage.ordinal()).record(nanos);
+	}
+	
+	void count_encryption(long bytes) {
+		messages_encrypted.increment();
+		cipher_text_bytes.add(bytes);
+	}
+	
+	void count_decryption(long bytes) {
+		messages_decrypted.increment();
+		cipher_text_bytes.add(bytes);
+	}
+	
+	void count_blocks(long count) {
+		blocks.add(count);
+	}
+	
+	void count_key_generated() {
+		keys_generated.increment();
+	}
+	
+	@Override
+	public long getMessagesEncrypted() {
+		return messages_encrypted.sum();
+	}
+	
+	@Override
+	public long getMessagesDecrypted() {
+		return messages_decrypted.sum();
+	}
+	
+	@Override
+	public long getBlocks() {
+		return blocks.sum();
+	}
+	
+	@Override
+	public long getCipherTextBytes() {
+		return cipher_text_bytes.sum();
+	}
+	
+	@Override
+	public long getKeysGenerated() {
+		return keys_generated.sum();
+	}
+	
+	@Override
+	public Map<String, Stage_Latency> getStageLatencies() {
+		Map<String, Stage_Latency> latencies = new TreeMap<String, Stage_Latency>();
+		for (Stage stage : Stage.values()) {
+			Latency_Histogram histogram = stage_latencies.get(stage.ordinal());
+			if (histogram.getCount() > 0) {
+				latencies.put(stage.name(), new Stage_Latency(histogram));
+			}
+		}
+		return latencies;
+	}
+	
+	/**
+	 * Histograms are swapped for empty ones rather than cleared, so a recording in progress is never torn.
+	 */
+	@Override
+	public void reset() {
+		messages_encrypted.reset();
+		messages_decrypted.reset();
+		blocks.reset();
+		cipher_text_bytes.reset();
+		keys_generated.reset();
+		for (Stage stage : Stage.values()) {
+			stage_latencies.set(stage.ordinal(), new Latency_Histogram());
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package rsa_module.instrumentation;
+
+import java.util.Map;
+
+/**
+ * The management interface of Rsa_Metrics, as seen through JMX.
+ * @author James Talbott
+ */
+public interface Rsa_Metrics_MXBean {
+	
+	long getMessagesEncrypted();
+	
+	long getMessagesDecrypted();
+	
+	long getBlocks();
+	
+	long getCipherTextBytes();
+	
+	long getKeysGenerated();
+	
+	/**
+	 * @return Latency statistics for each stage that has run, keyed by stage name.
+	 */
+	Map<String, Rsa_Metrics.Stage_Latency> getStageLatencies();
+	
+	/**
+	 * Zeroes every counter and histogram.
+	 */
+	void reset();
+}
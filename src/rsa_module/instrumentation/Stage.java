@@ -0,0 +1,49 @@
+package rsa_module.instrumentation;
+
+/**
+ * The steps of encryption, decryption, file access and key generation that are timed when instrumentation is enabled.
+ * @author James Talbott
+ */
+public enum Stage {
+	
+	/**
+	 * Turning plaintext characters into digits or bytes, and back again after decryption.
+	 */
+	TEXT_CONVERSION("Text conversion"),
+	
+	/**
+	 * Splitting digits or bytes into units smaller than the modulus.
+	 */
+	BLOCK_SPLITTING("Block splitting"),
+	
+	/**
+	 * Raising every unit to the key's exponent.
+	 */
+	EXPONENTIATION("Exponentiation"),
+	
+	/**
+	 * Zero padding decrypted units back to their encrypted width.
+	 */
+	PADDING("Padding"),
+	
+	/**
+	 * Joining transformed units into ciphertext or plaintext.
+	 */
+	CONCATENATION("Concatenation"),
+	
+	FILE_READ("File read"),
+	
+	FILE_WRITE("File write"),
+	
+	PRIME_SEARCH("Prime search");
+	
+	private final String label;
+	
+	Stage(String label) {
+		this.label = label;
+	}
+	
+	public String getLabel() {
+		return label;
+	}
+}
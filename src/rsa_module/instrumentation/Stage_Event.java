@@ -0,0 +1,46 @@
+package rsa_module.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event spanning one run of a stage. Only created when instrumentation is enabled, and only written
+ * when a recording has the event enabled.
+ * @author James Talbott
+ */
+@Name("rsa_module.Stage")
+@Label("RSA Stage")
+@Category("RSA Module")
+@Description("One run of a step of encryption, decryption, file access or key generation.")
+@StackTrace(false)
+public class Stage_Event extends Event {
+	
+	@Label("Stage")
+	String stage;
+	
+	@Label("Units")
+	@Description("Blocks, characters or primes handled.")
+	long units;
+	
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+	
+	/**
+	 * Not recorded by JFR; kept for the metrics histograms.
+	 */
+	transient final Stage stageValue;
+	
+	transient final long startNanos;
+	
+	Stage_Event(Stage stage) {
+		this.stageValue = stage;
+		this.stage = stage.getLabel();
+		this.startNanos = System.nanoTime();
+	}
+}
@@ -1,83 +1,239 @@
 package rsa_module.key_making;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 import rsa_module.data_structures.Key_Set;
 import rsa_module.data_structures.Rsa_Private_Key;
 import rsa_module.data_structures.Rsa_Public_Key;
-import rsa_module.utility.Random_Number_Generator;
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.instrumentation.Stage;
+import rsa_module.instrumentation.Stage_Event;
+import rsa_module.utility.Entropy_Source;
 
+/**
+ * Generates a new RSA key pair of a chosen modulus size, from two primes or, for faster CRT decryption with large
+ * moduli, from three or more.
+ * The primes are searched for concurrently, and each is checked on its own as it is found,
+ * so a prime that is unsuitable is replaced without discarding the others.
+ * Randomness comes from an Entropy_Source, by default one reusable SecureRandom per thread, and candidates are
+ * sieved and tested by a Prime_Candidate_Engine.
+ * @author James Talbott
+ */
 public class Key_Maker {
 	
+	public static final int default_modulus_bit_length = 2048;
+	
+	public static final int default_prime_count = 2;
+	
+	private static final int minimum_modulus_bit_length = 64;
+	
+	private static final int minimum_prime_bit_length = 32;
+	
+	private static final BigInteger public_key_exponent = new BigInteger("65537");
+	
+	private static final Prime_Candidate_Engine default_engine = new Prime_Candidate_Engine();
+	
 	private Rsa_Public_Key public_key;
 	
 	private Rsa_Private_Key private_key;
 	
-	private BigInteger p;
-	
-	private BigInteger q;
+	private BigInteger[] primes;
 	
 	private Key_Set new_keys;
 	
-	private Boolean random_numbers_are_not_prime = true;
+	private final int modulus_bit_length;
 	
-	private static final int minimum_first_prime_bit_length = 41;
+	private final Entropy_Source entropy;
 	
-	private static final int maximum_first_prime_bit_length = 51;
+	private final Prime_Candidate_Engine engine;
 	
-	private static final int minimum_prime_bit_length_difference = 5;
+	private Prime_Search[] searches;
 	
-	private static final int maximum_prime_bit_length_difference = 10;
+	private long prime_search_nanos;
 	
-	private static final BigInteger public_key_exponent = new BigInteger("65537");
+	private long derivation_nanos;
 	
 	public Key_Maker() {
-		while (random_numbers_are_not_prime) {
-			generate_new_keys();
+		this(default_modulus_bit_length);
+	}
+	
+	/**
+	 * Generates a key pair whose modulus is exactly the given number of bits long.
+	 * @param modulus_bit_length The modulus size, such as 2048, 3072 or 4096.
+	 */
+	public Key_Maker(int modulus_bit_length) {
+		this(modulus_bit_length, default_prime_count);
+	}
+	
+	/**
+	 * Generates a key pair whose modulus is exactly the given number of bits long and the product of the given
+	 * number of primes of near equal size. Three primes suit 3072 and 4096 bit moduli, and four suit 4096 bits and above.
+	 * @param modulus_bit_length The modulus size, such as 2048, 3072 or 4096.
+	 * @param prime_count The number of prime factors, at least two.
+	 */
+	public Key_Maker(int modulus_bit_length, int prime_count) {
+		this(modulus_bit_length, prime_count, Entropy_Source.secure());
+	}
+	
+	/**
+	 * As above, drawing randomness from the given source. A seeded source makes generation reproducible, for
+	 * benchmarks and tests.
+	 * @param modulus_bit_length The modulus size, such as 2048, 3072 or 4096.
+	 * @param prime_count The number of prime factors, at least two.
+	 * @param entropy The source of randomness for the prime searches.
+	 */
+	public Key_Maker(int modulus_bit_length, int prime_count, Entropy_Source entropy) {
+		this(modulus_bit_length, prime_count, entropy, default_engine);
+	}
+	
+	/**
+	 * As above, finding primes with the given engine, such as one running more Miller-Rabin rounds.
+	 * @param modulus_bit_length The modulus size, such as 2048, 3072 or 4096.
+	 * @param prime_count The number of prime factors, at least two.
+	 * @param entropy The source of randomness for the prime searches.
+	 * @param engine The engine the primes are found with.
+	 */
+	public Key_Maker(int modulus_bit_length, int prime_count, Entropy_Source entropy, Prime_Candidate_Engine engine) {
+		if (modulus_bit_length < minimum_modulus_bit_length) {
+			throw new IllegalArgumentException("Modulus must be at least " + minimum_modulus_bit_length + " bits.");
 		}
+		if (prime_count < 2 || modulus_bit_length / prime_count < minimum_prime_bit_length) {
+			throw new IllegalArgumentException("A key needs at least two primes of at least " + minimum_prime_bit_length + " bits.");
+		}
+		this.modulus_bit_length = modulus_bit_length;
+		this.entropy = entropy;
+		this.engine = engine;
+		generate_new_keys(prime_count);
 		new_keys = new Key_Set(public_key, private_key);
+		Instrumentation.count_key_generated();
 	}
 	
-	private void generate_new_keys() {
-		generate_random_large_primes();
+	private void generate_new_keys(int prime_count) {
+		BigInteger modulus = generate_random_large_primes(prime_count);
 		
 		//Calculate RSA significant values.
-		BigInteger modulus = p.multiply(q);
-		BigInteger totient = calculate_totient(p, q);
+		long start = System.nanoTime();
+		BigInteger totient = calculate_totient(primes);
 		BigInteger private_key_exponent = calculate_private_key_exponent(totient);
 		
 		store_new_keys_to_fields(modulus, private_key_exponent);
+		derivation_nanos = System.nanoTime() - start;
 	}
 	
-	private void generate_random_large_primes() {
-		int bit_length_p = random_number(minimum_first_prime_bit_length, maximum_first_prime_bit_length);
-		p = BigInteger.probablePrime(bit_length_p, new_random_generator());
-		q = generate_q_from_p(p, bit_length_p);
+	/**
+	 * Searches for every prime on a separate thread, splitting the modulus length between them as evenly as possible.
+	 * Each prime has its top two bits set, so the product of two always has the full modulus length; a product of
+	 * more can fall one bit short. A short product is not always fixed by replacing one prime, as the others may
+	 * multiply to too little for any prime of its length, so every prime is searched for again. If the primes are
+	 * only not distinct, the last one is searched for again.
+	 * @return The modulus.
+	 */
+	private BigInteger generate_random_large_primes(int prime_count) {
+		long start = System.nanoTime();
+		searches = new Prime_Search[prime_count];
+		for (int index = 0; index < prime_count; index++) {
+			int bit_length = modulus_bit_length / prime_count + (index < modulus_bit_length % prime_count ? 1 : 0);
+			searches[index] = new Prime_Search(bit_length, entropy.generator(), engine);
+		}
+		primes = new BigInteger[prime_count];
+		find_all_primes();
+		int last = prime_count - 1;
+		BigInteger modulus = product(primes);
+		while (! distinct(primes) || modulus.bitLength() != modulus_bit_length) {
+			if (modulus.bitLength() != modulus_bit_length) {
+				find_all_primes();
+			} else {
+				primes[last] = searches[last].find();
+			}
+			modulus = product(primes);
+		}
+		prime_search_nanos = System.nanoTime() - start;
+		return modulus;
 	}
 	
-	private int random_number(int minimum, int maximum) {
-		return Random_Number_Generator.generate_random_int(minimum, maximum);
+	private void find_all_primes() {
+		List<CompletableFuture<BigInteger>> results = new ArrayList<CompletableFuture<BigInteger>>();
+		for (Prime_Search search : searches) {
+			results.add(CompletableFuture.supplyAsync(search::find));
+		}
+		for (int index = 0; index < primes.length; index++) {
+			primes[index] = results.get(index).join();
+		}
 	}
 	
-	private Random new_random_generator() {
-		return Random_Number_Generator.generate_new_random_generator();
+	private static BigInteger product(BigInteger[] primes) {
+		BigInteger product = BigInteger.ONE;
+		for (BigInteger prime : primes) {
+			product = product.multiply(prime);
+		}
+		return product;
 	}
 	
-	private BigInteger generate_q_from_p(BigInteger p, int bit_length_p) {
-		int bit_length_q = random_bit_length_within_range_of(bit_length_p);
-		BigInteger q = BigInteger.probablePrime(bit_length_q, new_random_generator());
-		return q;
+	private static boolean distinct(BigInteger[] primes) {
+		return new HashSet<BigInteger>(Arrays.asList(primes)).size() == primes.length;
 	}
 	
-	private int random_bit_length_within_range_of(int bit_length_p) {
-		return bit_length_p + random_number(minimum_prime_bit_length_difference, maximum_prime_bit_length_difference);
+	/**
+	 * Searches for a single suitable prime of a fixed bit length, recording how long it took and how many
+	 * primes were rejected along the way.
+	 */
+	private static class Prime_Search {
+		
+		private final int bit_length;
+		
+		private final Random random;
+		
+		private final Prime_Candidate_Engine engine;
+		
+		private long nanos = 0;
+		
+		private int rejected_primes = 0;
+		
+		private Prime_Search(int bit_length, Random random, Prime_Candidate_Engine engine) {
+			this.bit_length = bit_length;
+			this.random = random;
+			this.engine = engine;
+		}
+		
+		private BigInteger find() {
+			Stage_Event event = Instrumentation.begin(Stage.PRIME_SEARCH);
+			long start = System.nanoTime();
+			int rejected_before = rejected_primes;
+			BigInteger prime = engine.find(bit_length, random);
+			while (! is_suitable_prime(prime, bit_length)) {
+				rejected_primes++;
+				prime = engine.find(bit_length, random);
+			}
+			nanos += System.nanoTime() - start;
+			Instrumentation.end(event, rejected_primes - rejected_before + 1, 0);
+			return prime;
+		}
 	}
 	
-	private BigInteger calculate_totient(BigInteger p, BigInteger q) {
-		BigInteger p_minus_one = p.subtract(BigInteger.ONE);
-		BigInteger q_minus_one = q.subtract(BigInteger.ONE);
-		BigInteger totient = (p_minus_one.multiply(q_minus_one)).divide(p_minus_one.gcd(q_minus_one));
+	/**
+	 * A prime is suitable if its second highest bit is set, so that it is at least 1.5 * 2^(bit_length - 1),
+	 * and if prime - 1 shares no factor with the public exponent, so that the private exponent exists.
+	 */
+	private static boolean is_suitable_prime(BigInteger prime, int bit_length) {
+		return prime.testBit(bit_length - 2) &&
+				prime.subtract(BigInteger.ONE).gcd(public_key_exponent).equals(BigInteger.ONE);
+	}
+	
+	/**
+	 * Carmichael's totient of the modulus: the least common multiple of each prime minus one.
+	 */
+	private BigInteger calculate_totient(BigInteger[] primes) {
+		BigInteger totient = BigInteger.ONE;
+		for (BigInteger prime : primes) {
+			BigInteger prime_minus_one = prime.subtract(BigInteger.ONE);
+			totient = (totient.multiply(prime_minus_one)).divide(totient.gcd(prime_minus_one));
+		}
 		return totient;
 	}
 	
@@ -99,18 +255,11 @@ public class Key_Maker {
 			r3 = r1.remainder(r2);
 			t3 = t1.subtract(q.multiply(t2));
 		}
-		check_p_and_q_are_prime(t3, totient);
 		return t2_modulus_totient(t2, totient);
 	}
 	
 	private boolean not_zero(BigInteger i) {
-		return ! i.equals(BigInteger.ZERO); 
-	}
-	
-	private void check_p_and_q_are_prime(BigInteger t3, BigInteger totient) {
-		if (t3.equals(totient)) {
-			random_numbers_are_not_prime = false;
-		}
+		return ! i.equals(BigInteger.ZERO);
 	}
 	
 	private BigInteger t2_modulus_totient(BigInteger t2, BigInteger totient) {
@@ -123,10 +272,30 @@ public class Key_Maker {
 	
 	private void store_new_keys_to_fields(BigInteger modulus, BigInteger private_key_exponent) {
 		public_key = new Rsa_Public_Key(modulus, public_key_exponent, "self");
-		private_key = new Rsa_Private_Key(modulus, private_key_exponent);
+		private_key = new Rsa_Private_Key(modulus, private_key_exponent, primes);
 	}
 	
 	public Key_Set getNewKeys() {
 		return new_keys;
 	}
+	
+	/**
+	 * @return A summary of where generation time went: each prime search, the concurrent search as a whole,
+	 * and the derivation of the exponents and CRT values.
+	 */
+	public String getTimingReport() {
+		StringBuilder report = new StringBuilder(String.format("Generated %d bit keys from %d primes in %.1f ms: ",
+				modulus_bit_length, searches.length, millis(prime_search_nanos + derivation_nanos)));
+		for (int index = 0; index < searches.length; index++) {
+			report.append(String.format("prime %d search %.1f ms (%d rejected), ", index + 1,
+					millis(searches[index].nanos), searches[index].rejected_primes));
+		}
+		report.append(String.format("concurrent prime search %.1f ms, key derivation %.1f ms.",
+				millis(prime_search_nanos), millis(derivation_nanos)));
+		return report.toString();
+	}
+	
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
 }
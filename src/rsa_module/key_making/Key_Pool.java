@@ -0,0 +1,155 @@
+package rsa_module.key_making;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rsa_module.Rsa_Decryption_Operator;
+import rsa_module.Rsa_Encryption_Operator;
+import rsa_module.data_structures.Key_Set;
+import rsa_module.data_structures.Rsa_Private_Key;
+import rsa_module.data_structures.Rsa_Public_Key;
+import rsa_module.utility.File_Accesser;
+
+/**
+ * A pool of pre-generated key pairs, kept filled to a fixed depth by daemon threads, so that rotating keys
+ * does not have to wait for a prime search. Taking a pair is O(1) when one is ready; otherwise a pair is
+ * generated on the spot and counted as a miss.
+ * Unused pairs can be spilled to a file, encrypted with the user's own public key, and restored on the next start.
+ * @author James Talbott
+ */
+public class Key_Pool {
+	
+	private final BlockingQueue<Key_Set> ready_keys;
+	
+	private final int modulus_bit_length;
+	
+	private final List<Thread> generators = new ArrayList<Thread>();
+	
+	private final AtomicLong hits = new AtomicLong();
+	
+	private final AtomicLong misses = new AtomicLong();
+	
+	private volatile boolean running = true;
+	
+	/**
+	 * Creates the pool and starts its generator threads.
+	 * @param depth The number of ready pairs to keep.
+	 * @param modulus_bit_length The modulus size of generated pairs.
+	 * @param generator_threads The number of daemon threads generating pairs.
+	 */
+	public Key_Pool(int depth, int modulus_bit_length, int generator_threads) {
+		if (depth < 1 || generator_threads < 1) {
+			throw new IllegalArgumentException("Key pool needs a depth and thread count of at least one.");
+		}
+		this.ready_keys = new ArrayBlockingQueue<Key_Set>(depth);
+		this.modulus_bit_length = modulus_bit_length;
+		for (int index = 0; index < generator_threads; index++) {
+			Thread generator = new Thread(this::keep_pool_filled, "key-pool-generator-" + index);
+			generator.setDaemon(true);
+			generators.add(generator);
+			generator.start();
+		}
+	}
+	
+	private void keep_pool_filled() {
+		try {
+			while (running) {
+				ready_keys.put(new Key_Maker(modulus_bit_length).getNewKeys());
+			}
+		} catch (InterruptedException ie) {
+			//Pool is shutting down.
+		}
+	}
+	
+	/**
+	 * Takes a ready key pair, or generates one if the pool is empty.
+	 * @return A key pair that has not been handed out before.
+	 */
+	public Key_Set take() {
+		Key_Set keys = ready_keys.poll();
+		if (keys != null) {
+			hits.incrementAndGet();
+			return keys;
+		}
+		misses.incrementAndGet();
+		return new Key_Maker(modulus_bit_length).getNewKeys();
+	}
+	
+	public long getHitCount() {
+		return hits.get();
+	}
+	
+	public long getMissCount() {
+		return misses.get();
+	}
+	
+	public int getReadyCount() {
+		return ready_keys.size();
+	}
+	
+	/**
+	 * Stops the generator threads. Pairs already in the pool stay available to take and spill.
+	 */
+	public void shutdown() {
+		running = false;
+		for (Thread generator : generators) {
+			generator.interrupt();
+		}
+	}
+	
+	/**
+	 * Moves every ready pair into the spill file, encrypted with the given key, replacing its contents.
+	 * @param spill_file The file to write.
+	 * @param encryption_key The user's own public key.
+	 */
+	public void spill(File_Accesser spill_file, Rsa_Public_Key encryption_key) {
+		List<Key_Set> unused_keys = new ArrayList<Key_Set>();
+		ready_keys.drainTo(unused_keys);
+		StringBuilder key_text = new StringBuilder();
+		for (Key_Set keys : unused_keys) {
+			key_text.append("selfPrivate:" + keys.getPrivateKey().toString() + System.lineSeparator());
+			key_text.append(keys.getPublicKey().toString() + System.lineSeparator());
+		}
+		if (unused_keys.isEmpty()) {
+			spill_file.writeToFile("");
+		} else {
+			spill_file.writeToFile(new Rsa_Encryption_Operator(encryption_key, key_text.toString()).getCipherText());
+		}
+	}
+	
+	/**
+	 * Loads pairs spilled by a previous run into the pool, then empties the spill file so no pair is handed out twice.
+	 * The file is only emptied once every pair in it has been read, so a file that cannot be read is left as it is.
+	 * Pairs beyond the pool's depth are discarded.
+	 * @param spill_file The file written by spill.
+	 * @param decryption_key The private key matching the public key the file was spilled with.
+	 * @return The number of pairs restored.
+	 */
+	public int restore(File_Accesser spill_file, Rsa_Private_Key decryption_key) {
+		if (spill_file.length() == 0) {
+			return 0;
+		}
+		String cipher_text = spill_file.readFile().trim();
+		List<Key_Set> spilled_keys = new ArrayList<Key_Set>();
+		try {
+			String[] key_lines = new Rsa_Decryption_Operator(decryption_key, cipher_text).getPlainText().split(System.lineSeparator());
+			for (int index = 0; index + 1 < key_lines.length; index += 2) {
+				spilled_keys.add(new Key_Set(new Rsa_Public_Key(key_lines[index + 1]), new Rsa_Private_Key(key_lines[index])));
+			}
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			//Spilled with a key that is no longer the user's, or damaged; those pairs are unrecoverable.
+			return 0;
+		}
+		spill_file.writeToFile("");
+		int restored = 0;
+		for (Key_Set keys : spilled_keys) {
+			if (ready_keys.offer(keys)) {
+				restored++;
+			}
+		}
+		return restored;
+	}
+}
@@ -0,0 +1,177 @@
+package rsa_module.key_making;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Finds random probable primes by sieving a window of consecutive odd candidates against the small primes, and
+ * running Miller-Rabin only on those the sieve leaves.
+ * A search picks a random odd start with its top two bits set and keeps a table of the start's residues modulo each
+ * small prime. From the table, the multiples of every small prime within the window are struck out directly, without
+ * dividing any candidate. If the window holds no prime, the start moves past it and the residues are advanced by the
+ * window's width rather than recomputed.
+ * Immutable, so one engine may serve any number of threads.
+ * @author James Talbott
+ */
+public class Prime_Candidate_Engine {
+	
+	/**
+	 * As FIPS 186-5 asks of primes of 1024 bits, for an error probability below 2^-100.
+	 */
+	public static final int default_miller_rabin_rounds = 5;
+	
+	private static final int number_of_small_primes = 2048;
+	
+	/**
+	 * The number of odd candidates sieved at once. Several times the expected gap between primes of 2048 bits.
+	 */
+	private static final int window_length = 4096;
+	
+	private static final int minimum_bit_length = 16;
+	
+	/**
+	 * The odd primes from 3, all smaller than 2^15, so never equal to a candidate of minimum_bit_length or more.
+	 */
+	private static final int[] small_primes = odd_primes(number_of_small_primes);
+	
+	private final int miller_rabin_rounds;
+	
+	public Prime_Candidate_Engine() {
+		this(default_miller_rabin_rounds);
+	}
+	
+	/**
+	 * @param miller_rabin_rounds The number of Miller-Rabin rounds with random bases a candidate must pass.
+	 */
+	public Prime_Candidate_Engine(int miller_rabin_rounds) {
+		if (miller_rabin_rounds < 1) {
+			throw new IllegalArgumentException("Primality testing needs at least one Miller-Rabin round.");
+		}
+		this.miller_rabin_rounds = miller_rabin_rounds;
+	}
+	
+	private static int[] odd_primes(int count) {
+		int limit = 32768;
+		boolean[] composite = new boolean[limit];
+		int[] primes = new int[count];
+		int found = 0;
+		for (int number = 3; found < count; number += 2) {
+			if (! composite[number]) {
+				primes[found++] = number;
+				for (int multiple = number * number; multiple < limit; multiple += 2 * number) {
+					composite[multiple] = true;
+				}
+			}
+		}
+		return primes;
+	}
+	
+	public int getMillerRabinRounds() {
+		return miller_rabin_rounds;
+	}
+	
+	/**
+	 * Finds a probable prime of exactly the given length whose top two bits are set, so that it is at least
+	 * 1.5 * 2^(bit_length - 1) and the product of two such primes has exactly twice their length.
+	 * @param bit_length The length of the prime, at least 16 bits.
+	 * @param random The source of the start and the Miller-Rabin bases.
+	 * @return The prime.
+	 */
+	public BigInteger find(int bit_length, Random random) {
+		if (bit_length < minimum_bit_length) {
+			throw new IllegalArgumentException("Primes must be at least " + minimum_bit_length + " bits.");
+		}
+		while (true) {
+			BigInteger prime = search_from(random_start(bit_length, random), bit_length, random);
+			if (prime != null) {
+				return prime;
+			}
+		}
+	}
+	
+	private static BigInteger random_start(int bit_length, Random random) {
+		return new BigInteger(bit_length, random).setBit(bit_length - 1).setBit(bit_length - 2).setBit(0);
+	}
+	
+	/**
+	 * Sieves window after window from the start until a prime is found or the candidates outgrow the bit length.
+	 * @return The first probable prime at or after the start, or null if the candidates outgrew the bit length first.
+	 */
+	private BigInteger search_from(BigInteger start, int bit_length, Random random) {
+		int[] residues = new int[small_primes.length];
+		for (int index = 0; index < small_primes.length; index++) {
+			residues[index] = start.mod(BigInteger.valueOf(small_primes[index])).intValue();
+		}
+		boolean[] struck = new boolean[window_length];
+		BigInteger window_start = start;
+		while (window_start.bitLength() == bit_length) {
+			sieve_window(residues, struck);
+			for (int offset = 0; offset < window_length; offset++) {
+				if (! struck[offset]) {
+					BigInteger candidate = window_start.add(BigInteger.valueOf(2L * offset));
+					if (candidate.bitLength() != bit_length) {
+						return null;
+					}
+					if (passes_miller_rabin(candidate, random)) {
+						return candidate;
+					}
+				}
+			}
+			window_start = window_start.add(BigInteger.valueOf(2L * window_length));
+			advance_residues(residues);
+		}
+		return null;
+	}
+	
+	/**
+	 * Strikes every candidate divisible by a small prime. Candidate j is window_start + 2j, so it is divisible by p
+	 * when j is congruent to -residue / 2 mod p.
+	 */
+	private static void sieve_window(int[] residues, boolean[] struck) {
+		Arrays.fill(struck, false);
+		for (int index = 0; index < small_primes.length; index++) {
+			int prime = small_primes[index];
+			long half = (prime + 1) / 2;
+			int first = (int) ((prime - residues[index]) % prime * half % prime);
+			for (int offset = first; offset < window_length; offset += prime) {
+				struck[offset] = true;
+			}
+		}
+	}
+	
+	private static void advance_residues(int[] residues) {
+		for (int index = 0; index < small_primes.length; index++) {
+			residues[index] = (int) ((residues[index] + 2L * window_length) % small_primes[index]);
+		}
+	}
+	
+	/**
+	 * Miller-Rabin with random bases in [2, candidate - 2].
+	 */
+	private boolean passes_miller_rabin(BigInteger candidate, Random random) {
+		BigInteger candidate_minus_one = candidate.subtract(BigInteger.ONE);
+		int squarings = candidate_minus_one.getLowestSetBit();
+		BigInteger odd_part = candidate_minus_one.shiftRight(squarings);
+		BigInteger largest_base = candidate.subtract(BigInteger.TWO);
+		for (int round = 0; round < miller_rabin_rounds; round++) {
+			BigInteger base;
+			do {
+				base = new BigInteger(candidate.bitLength(), random);
+			} while (base.compareTo(BigInteger.TWO) < 0 || base.compareTo(largest_base) > 0);
+			BigInteger power = base.modPow(odd_part, candidate);
+			if (power.equals(BigInteger.ONE) || power.equals(candidate_minus_one)) {
+				continue;
+			}
+			boolean reached_minus_one = false;
+			for (int squaring = 1; squaring < squarings && ! reached_minus_one; squaring++) {
+				power = power.multiply(power).mod(candidate);
+				reached_minus_one = power.equals(candidate_minus_one);
+			}
+			if (! reached_minus_one) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
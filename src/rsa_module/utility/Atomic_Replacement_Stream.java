@@ -0,0 +1,113 @@
+package rsa_module.utility;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+/**
+ * A buffered stream over a temporary sibling of a target file. commit forces the temporary file to disk and renames
+ * it over the target. Closing without committing, as when an exception leaves a try-with-resources block, deletes
+ * the temporary file and leaves the target as it was.
+ * @author James Talbott
+ */
+public class Atomic_Replacement_Stream extends OutputStream {
+	
+	private final Path target;
+	
+	private final Path temporary;
+	
+	private final FileChannel channel;
+	
+	private final OutputStream output;
+	
+	private boolean closed = false;
+	
+	Atomic_Replacement_Stream(Path target, int buffer_length) throws IOException {
+		this.target = target.toAbsolutePath();
+		this.temporary = Files.createTempFile(this.target.getParent(), this.target.getFileName().toString(), ".tmp");
+		this.channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+		this.output = new BufferedOutputStream(Channels.newOutputStream(channel), buffer_length);
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		output.write(b);
+	}
+	
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		output.write(bytes, offset, length);
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		output.flush();
+	}
+	
+	/**
+	 * Replaces the target with everything written so far and closes the stream. Anything wrapping this stream,
+	 * such as a Writer, must be flushed first.
+	 * @throws IOException If the stream is already closed or the replacement fails, in which case the target is unchanged.
+	 */
+	public void commit() throws IOException {
+		if (closed) {
+			throw new IOException("Stream is already closed: " + target);
+		}
+		boolean committed = false;
+		try {
+			output.flush();
+			channel.force(true);
+			channel.close();
+			keep_existing_permissions();
+			move_into_place();
+			committed = true;
+		} finally {
+			closed = true;
+			if (! committed) {
+				discard();
+			}
+		}
+	}
+	
+	/**
+	 * Discards everything written unless commit has been called.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		discard();
+	}
+	
+	private void discard() throws IOException {
+		channel.close();
+		Files.deleteIfExists(temporary);
+	}
+	
+	/**
+	 * Temporary files are created readable by the owner only, so an existing target's permissions are copied over.
+	 */
+	private void keep_existing_permissions() throws IOException {
+		if (Files.exists(target) && Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class)) {
+			Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(target));
+		}
+	}
+	
+	private void move_into_place() throws IOException {
+		try {
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException amnse) {
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package rsa_module.utility;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Packs bytes into fixed-size numeric units for encryption, and unpacks them again after decryption.
+ * The byte sequence is padded with a single 0x80 byte followed by zeros up to a whole number of units,
+ * so the original length is recoverable without a length field and units can be produced one at a time.
+ * @author James Talbott
+ */
+public class Byte_Block_Packer {
+	
+	private static final byte padding_marker = (byte) 0x80;
+	
+	/**
+	 * Determines how many whole bytes fit in a unit that must stay smaller than the modulus.
+	 * @param modulus The modulus of the key that will be used for encryption.
+	 * @return The number of bytes per unit, which is (bit length - 1) / 8.
+	 */
+	public static int block_size_in_bytes(BigInteger modulus) {
+		int blockSize = (modulus.bitLength() - 1) / 8;
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Modulus is too small to hold a single byte per unit.");
+		}
+		return blockSize;
+	}
+	
+	/**
+	 * Pads the bytes and packs them into units of blockSize bytes each.
+	 * @param bytes The bytes to pack.
+	 * @param blockSize The number of bytes per unit.
+	 * @return The units as non-negative BigIntegers.
+	 */
+	public static BigInteger[] pack(byte[] bytes, int blockSize) {
+		byte[] padded = pad(bytes, blockSize);
+		BigInteger[] blocks = new BigInteger[padded.length / blockSize];
+		for (int index = 0; index < blocks.length; index++) {
+			blocks[index] = new BigInteger(1, padded, index * blockSize, blockSize);
+		}
+		return blocks;
+	}
+	
+	private static byte[] pad(byte[] bytes, int blockSize) {
+		int paddedLength = (bytes.length / blockSize + 1) * blockSize;
+		byte[] padded = Arrays.copyOf(bytes, paddedLength);
+		pad_unit(padded, bytes.length);
+		return padded;
+	}
+	
+	/**
+	 * Pads a final, partially filled unit in place.
+	 * @param unit A unit holding fewer message bytes than its length.
+	 * @param length The number of message bytes at the start of the unit.
+	 */
+	public static void pad_unit(byte[] unit, int length) {
+		unit[length] = padding_marker;
+		Arrays.fill(unit, length + 1, unit.length, (byte) 0);
+	}
+	
+	/**
+	 * Reverses pack, writing each unit back out as blockSize bytes and removing the padding.
+	 * @param blocks The decrypted units.
+	 * @param blockSize The number of bytes per unit.
+	 * @return The original bytes.
+	 */
+	public static byte[] unpack(BigInteger[] blocks, int blockSize) {
+		byte[] padded = new byte[blocks.length * blockSize];
+		for (int index = 0; index < blocks.length; index++) {
+			write_block(blocks[index], padded, index * blockSize, blockSize);
+		}
+		return Arrays.copyOf(padded, unpadded_length(padded, padded.length));
+	}
+	
+	/**
+	 * Writes a unit as exactly blockSize big-endian bytes into the destination array.
+	 * @param block The unit, which must fit in blockSize bytes.
+	 * @param destination The array to write into.
+	 * @param offset The index of the first byte written.
+	 * @param blockSize The number of bytes to write.
+	 */
+	public static void write_block(BigInteger block, byte[] destination, int offset, int blockSize) {
+		byte[] magnitude = block.toByteArray();
+		int significantBytes = Math.min(magnitude.length, blockSize);
+		int leadingZeros = blockSize - significantBytes;
+		Arrays.fill(destination, offset, offset + leadingZeros, (byte) 0);
+		System.arraycopy(magnitude, magnitude.length - significantBytes, destination, offset + leadingZeros, significantBytes);
+	}
+	
+	/**
+	 * Finds the length of the message within a padded byte array.
+	 * @param padded The bytes of the final units of a message.
+	 * @param length The number of valid bytes in the array.
+	 * @return The index of the padding marker, which is the unpadded length.
+	 */
+	public static int unpadded_length(byte[] padded, int length) {
+		int index = length - 1;
+		while (index >= 0 && padded[index] == 0) {
+			index--;
+		}
+		if (index < 0 || padded[index] != padding_marker) {
+			throw new IllegalArgumentException("Decrypted units do not end with valid padding.");
+		}
+		return index;
+	}
+}
@@ -0,0 +1,85 @@
+package rsa_module.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses bytes with the JDK's zlib Deflater ahead of encryption, and restores them after decryption.
+ * The zlib stream ends with an Adler-32 checksum of the original bytes, so damaged input is rejected rather
+ * than inflated into something else.
+ * @author James Talbott
+ */
+public class Byte_Compressor {
+	
+	private static final int buffer_length = 64 * 1024;
+	
+	/**
+	 * The default limit on inflated output. Compressed text comes from whoever encrypted it, and a few kilobytes
+	 * of it can inflate to gigabytes, so output is refused once it passes a limit.
+	 */
+	public static final int default_maximum_inflated_length = 64 * 1024 * 1024;
+	
+	/**
+	 * @param bytes The bytes to compress.
+	 * @return The compressed bytes, which for incompressible input may be slightly longer than the original.
+	 */
+	public static byte[] deflate(byte[] bytes) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			deflater.setInput(bytes);
+			deflater.finish();
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 64);
+			byte[] buffer = new byte[buffer_length];
+			while (! deflater.finished()) {
+				compressed.write(buffer, 0, deflater.deflate(buffer));
+			}
+			return compressed.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+	
+	/**
+	 * Inflates at most default_maximum_inflated_length bytes.
+	 * @param compressed Bytes produced by deflate.
+	 * @return The original bytes.
+	 * @throws IllegalArgumentException If the bytes are not a complete zlib stream, fail its checksum or inflate to
+	 * more than the limit.
+	 */
+	public static byte[] inflate(byte[] compressed) {
+		return inflate(compressed, default_maximum_inflated_length);
+	}
+	
+	/**
+	 * @param compressed Bytes produced by deflate.
+	 * @param maximum_length The most bytes the original may have.
+	 * @return The original bytes.
+	 * @throws IllegalArgumentException If the bytes are not a complete zlib stream, fail its checksum or inflate to
+	 * more than maximum_length bytes.
+	 */
+	public static byte[] inflate(byte[] compressed, int maximum_length) {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(maximum_length, compressed.length * 4L));
+			byte[] buffer = new byte[buffer_length];
+			while (! inflater.finished()) {
+				int inflated = inflater.inflate(buffer);
+				if (inflated == 0 && ! inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IllegalArgumentException("Compressed text is truncated.");
+				}
+				if (inflated > maximum_length - bytes.size()) {
+					throw new IllegalArgumentException("Compressed text inflates to more than " + maximum_length + " bytes.");
+				}
+				bytes.write(buffer, 0, inflated);
+			}
+			return bytes.toByteArray();
+		} catch (DataFormatException dfe) {
+			throw new IllegalArgumentException("Compressed text is corrupt.", dfe);
+		} finally {
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package rsa_module.utility;
+
+import java.math.BigInteger;
+
+/**
+ * Converts between the decimal wire format and numbers, writing and reading ASCII digits in caller-supplied byte
+ * buffers. Units are parsed and formatted nine digits at a time against a reusable magnitude buffer, so the only
+ * allocation per unit is the BigInteger itself and, when formatting a large unit, its byte form.
+ * Characters are written as their UTF-16 code zero-padded to four digits; codes of 10000 and above take five.
+ * An instance holds scratch buffers and must not be shared between threads.
+ * @author James Talbott
+ */
+public class Decimal_Codec {
+	
+	public static final int digits_per_character = 4;
+	
+	private static final int digits_per_group = 9;
+	
+	private static final long group_radix = 1_000_000_000L;
+	
+	private static final long word_mask = 0xffffffffL;
+	
+	private static final int[] powers_of_ten = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000};
+	
+	private int[] magnitude = new int[0];
+	
+	private byte[] magnitude_bytes = new byte[0];
+	
+	private byte[] formatted = new byte[0];
+	
+	private int formatted_start;
+	
+	/**
+	 * @param text Plaintext characters.
+	 * @return The number of digits write_characters will write for the text.
+	 */
+	public static int numeric_length(CharSequence text) {
+		int length = 0;
+		for (int index = 0; index < text.length(); index++) {
+			length += text.charAt(index) < 10000 ? digits_per_character : digits_per_character + 1;
+		}
+		return length;
+	}
+	
+	/**
+	 * Writes each character's code as decimal digits.
+	 * @param text Plaintext characters.
+	 * @param digits A buffer of at least numeric_length(text) bytes.
+	 */
+	public static void write_characters(CharSequence text, byte[] digits) {
+		int position = 0;
+		for (int index = 0; index < text.length(); index++) {
+			int code = text.charAt(index);
+			int width = code < 10000 ? digits_per_character : digits_per_character + 1;
+			for (int digit = position + width - 1; digit >= position; digit--) {
+				digits[digit] = (byte) ('0' + code % 10);
+				code /= 10;
+			}
+			position += width;
+		}
+	}
+	
+	/**
+	 * Reads characters back from groups of four digits. A shorter final group is read as it stands.
+	 * @param digits The digits.
+	 * @param length The number of digits to read.
+	 * @return The characters.
+	 */
+	public static char[] read_characters(byte[] digits, int length) {
+		char[] characters = new char[(length + digits_per_character - 1) / digits_per_character];
+		for (int index = 0; index < characters.length; index++) {
+			int start = index * digits_per_character;
+			characters[index] = (char) parse_int(digits, start, Math.min(digits_per_character, length - start));
+		}
+		return characters;
+	}
+	
+	private static int parse_int(byte[] digits, int offset, int length) {
+		int value = 0;
+		for (int index = offset; index < offset + length; index++) {
+			int digit = digits[index] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Not a decimal digit: " + (char) digits[index]);
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+	
+	/**
+	 * Parses a run of decimal digits as a non-negative number.
+	 * @param digits ASCII digits.
+	 * @param offset The first digit.
+	 * @param length The number of digits, at least one.
+	 * @return The number.
+	 * @throws NumberFormatException If the run is empty or holds anything other than digits.
+	 */
+	public BigInteger parse(byte[] digits, int offset, int length) {
+		if (length < 1) {
+			throw new NumberFormatException("Zero length decimal unit.");
+		}
+		if (length <= 18) {
+			long value = 0;
+			int end = offset + length;
+			for (int start = offset; start < end; start += digits_per_group) {
+				int groupLength = Math.min(digits_per_group, end - start);
+				value = value * powers_of_ten[groupLength] + parse_int(digits, start, groupLength);
+			}
+			return BigInteger.valueOf(value);
+		}
+		ensure_magnitude_capacity(length / digits_per_group + 2);
+		int used = 0;
+		int groupLength = length % digits_per_group == 0 ? digits_per_group : length % digits_per_group;
+		for (int start = offset; start < offset + length; start += groupLength, groupLength = digits_per_group) {
+			long multiplier = powers_of_ten[groupLength];
+			long carry = parse_int(digits, start, groupLength);
+			for (int word = 0; word < used; word++) {
+				long product = (magnitude[word] & word_mask) * multiplier + carry;
+				magnitude[word] = (int) product;
+				carry = product >>> 32;
+			}
+			if (carry != 0) {
+				magnitude[used++] = (int) carry;
+			}
+		}
+		return new BigInteger(1, magnitude_bytes_of(used), 0, used * 4);
+	}
+	
+	private byte[] magnitude_bytes_of(int used) {
+		for (int word = 0; word < used; word++) {
+			int value = magnitude[used - 1 - word];
+			magnitude_bytes[word * 4] = (byte) (value >>> 24);
+			magnitude_bytes[word * 4 + 1] = (byte) (value >>> 16);
+			magnitude_bytes[word * 4 + 2] = (byte) (value >>> 8);
+			magnitude_bytes[word * 4 + 3] = (byte) value;
+		}
+		return magnitude_bytes;
+	}
+	
+	private void ensure_magnitude_capacity(int words) {
+		if (magnitude.length < words) {
+			magnitude = new int[words];
+			magnitude_bytes = new byte[words * 4];
+		}
+	}
+	
+	/**
+	 * Formats a non-negative number into the codec's scratch buffer, ready for write_formatted.
+	 * @param unit The number.
+	 * @return Its number of digits, as in unit.toString().
+	 */
+	public int format(BigInteger unit) {
+		int maximumDigits = (int) (unit.bitLength() * 0.30103) + 2;
+		if (formatted.length < maximumDigits) {
+			formatted = new byte[Math.max(maximumDigits, 2 * formatted.length)];
+		}
+		int position = formatted.length;
+		if (unit.bitLength() < 63) {
+			long value = unit.longValue();
+			do {
+				formatted[--position] = (byte) ('0' + value % 10);
+				value /= 10;
+			} while (value != 0);
+		} else {
+			position = format_magnitude(unit.toByteArray(), position);
+		}
+		formatted_start = position;
+		return formatted.length - position;
+	}
+	
+	/**
+	 * Divides the magnitude by 10^9 repeatedly, writing each remainder as nine digits from the right.
+	 */
+	private int format_magnitude(byte[] bytes, int position) {
+		int words = (bytes.length + 3) / 4;
+		ensure_magnitude_capacity(words);
+		for (int word = 0; word < words; word++) {
+			int value = 0;
+			for (int index = Math.max(0, bytes.length - 4 * (words - word)); index < bytes.length - 4 * (words - word - 1); index++) {
+				value = (value << 8) | (bytes[index] & 0xff);
+			}
+			magnitude[word] = value;
+		}
+		int first = 0;
+		while (first < words && magnitude[first] == 0) {
+			first++;
+		}
+		while (first < words) {
+			long remainder = 0;
+			for (int word = first; word < words; word++) {
+				long dividend = (remainder << 32) | (magnitude[word] & word_mask);
+				magnitude[word] = (int) (dividend / group_radix);
+				remainder = dividend % group_radix;
+			}
+			while (first < words && magnitude[first] == 0) {
+				first++;
+			}
+			int groupEnd = position - digits_per_group;
+			do {
+				formatted[--position] = (byte) ('0' + remainder % 10);
+				remainder /= 10;
+			} while (first < words ? position > groupEnd : remainder != 0);
+		}
+		return position;
+	}
+	
+	/**
+	 * Writes the last formatted number right-aligned in a field of at least width digits, padded with zeros.
+	 * A number longer than the field is written in full.
+	 * @return The number of bytes written.
+	 */
+	public int write_formatted(int width, byte[] destination, int offset) {
+		int length = formatted.length - formatted_start;
+		int padding = Math.max(0, width - length);
+		for (int index = 0; index < padding; index++) {
+			destination[offset + index] = '0';
+		}
+		System.arraycopy(formatted, formatted_start, destination, offset + padding, length);
+		return padding + length;
+	}
+	
+	/**
+	 * Formats a number and writes it zero-padded to width digits.
+	 * @return The number of bytes written.
+	 */
+	public int write(BigInteger unit, int width, byte[] destination, int offset) {
+		format(unit);
+		return write_formatted(width, destination, offset);
+	}
+}
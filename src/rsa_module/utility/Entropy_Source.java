@@ -0,0 +1,109 @@
+package rsa_module.utility;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Supplies the randomness Key_Maker searches for primes with.
+ * The secure source gives every thread its own DRBG SecureRandom, created on the thread's first use and kept for
+ * every later search, so concurrent searches neither share a generator nor allocate one per prime.
+ * A seeded source instead hands out ordinary generators derived from a seed in a fixed sequence, so that the same
+ * seed always yields the same primes. It is for benchmarks and tests only; its keys are predictable.
+ * @author James Talbott
+ */
+public abstract class Entropy_Source {
+	
+	private static final Entropy_Source secure_source = new Secure_Source();
+	
+	/**
+	 * @return The shared secure source.
+	 */
+	public static Entropy_Source secure() {
+		return secure_source;
+	}
+	
+	/**
+	 * @param seed The seed every generator is derived from.
+	 * @return A new deterministic source. Two sources with the same seed hand out the same generators.
+	 */
+	public static Entropy_Source seeded(long seed) {
+		return new Seeded_Source(seed);
+	}
+	
+	/**
+	 * Called once per prime search, on the thread that sets the searches up, and kept for every candidate of that search.
+	 * @return A generator for one search.
+	 */
+	public abstract Random generator();
+	
+	/**
+	 * @return True if the generators are derived from a seed rather than from system entropy.
+	 */
+	public abstract boolean isDeterministic();
+	
+	private static class Secure_Source extends Entropy_Source {
+		
+		private final ThreadLocal<SecureRandom> thread_generators = ThreadLocal.withInitial(Secure_Source::new_secure_random);
+		
+		/**
+		 * Forwards to the calling thread's generator, so a search uses the generator of whichever thread runs it.
+		 */
+		private final Random thread_generator = new Random() {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected int next(int bits) {
+				return thread_generators.get().nextInt() >>> (32 - bits);
+			}
+			
+			@Override
+			public void nextBytes(byte[] bytes) {
+				thread_generators.get().nextBytes(bytes);
+			}
+		};
+		
+		private static SecureRandom new_secure_random() {
+			try {
+				return SecureRandom.getInstance("DRBG");
+			} catch (NoSuchAlgorithmException nsae) {
+				return new SecureRandom();
+			}
+		}
+		
+		@Override
+		public Random generator() {
+			return thread_generator;
+		}
+		
+		@Override
+		public boolean isDeterministic() {
+			return false;
+		}
+	}
+	
+	private static class Seeded_Source extends Entropy_Source {
+		
+		private static final long golden_gamma = 0x9E3779B97F4A7C15L;
+		
+		private final long seed;
+		
+		private final AtomicLong generators_handed_out = new AtomicLong();
+		
+		private Seeded_Source(long seed) {
+			this.seed = seed;
+		}
+		
+		@Override
+		public Random generator() {
+			return new Random(seed + golden_gamma * generators_handed_out.incrementAndGet());
+		}
+		
+		@Override
+		public boolean isDeterministic() {
+			return true;
+		}
+	}
+}
@@ -1,57 +1,171 @@
 package rsa_module.utility;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
 
+import rsa_module.instrumentation.Instrumentation;
+import rsa_module.instrumentation.Stage;
+import rsa_module.instrumentation.Stage_Event;
+
+/**
+ * Reads and writes a single text file in an explicit charset, UTF-8 unless another is given.
+ * Whole-file reads are one bulk channel read. Every write goes to a temporary file in the same directory,
+ * which is forced to disk and then renamed over the target only once the write has succeeded, so a crash or
+ * failure part way through a write leaves the previous contents intact rather than a truncated file.
+ * @author James Talbott
+ */
 public class File_Accesser {
 	
-	private File file;
+	private static final int default_chunk_length = 64 * 1024;
+	
+	private final Path path;
+	
+	private final Charset charset;
 	
 	public File_Accesser(String filename) {
-		this(new File(Paths.get(filename).toString()));
+		this(Paths.get(filename));
 	}
 	
 	public File_Accesser(File file) {
-		this.file = file;
+		this(file.toPath());
+	}
+	
+	public File_Accesser(Path path) {
+		this(path, StandardCharsets.UTF_8);
+	}
+	
+	public File_Accesser(Path path, Charset charset) {
+		this.path = path;
+		this.charset = charset;
 	}
 	
 	public String readFile() {
 		try {
-			return extract_text_from_file(file);
-		} catch (Exception e) {
-			e.printStackTrace();
+			return new String(read_all_bytes(), charset);
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
 		}
 		return null;
 	}
 	
-	private String extract_text_from_file(File file) throws FileNotFoundException, IOException {
-		FileReader file_reader = new FileReader(file);
-		String text = read_file_into_String(file_reader);
-		file_reader.close();
-		return text;
-	}
-	
-	private String read_file_into_String(FileReader file_reader) throws IOException {
-		StringBuilder text = new StringBuilder();
-		int c = file_reader.read();
-		while (c != -1) {
-			text.append((char) c);
-			c = file_reader.read();
+	private byte[] read_all_bytes() throws IOException {
+		Stage_Event event = Instrumentation.begin(Stage.FILE_READ);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8) {
+				throw new IOException("File too large to read into memory: " + path);
+			}
+			ByteBuffer bytes = ByteBuffer.allocate((int) size);
+			while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+				//Keep reading until the buffer is full.
+			}
+			Instrumentation.end(event, 1, bytes.position());
+			return bytes.array();
 		}
-		return text.toString();
 	}
 	
 	public void writeToFile(String text) {
-		try {
-			FileWriter fw = new FileWriter(file);
-			fw.write(text);
-			fw.close();
+		Stage_Event event = Instrumentation.begin(Stage.FILE_WRITE);
+		byte[] bytes = text.getBytes(charset);
+		try (Atomic_Replacement_Stream output = openOutputStream()) {
+			output.write(bytes);
+			output.commit();
 		} catch (IOException ioe) {
 			ioe.printStackTrace();
 		}
+		Instrumentation.end(event, 1, bytes.length);
+	}
+	
+	/**
+	 * Reads the file a chunk of characters at a time, without holding the whole text in memory.
+	 * The chunk passed to the consumer is reused for the next one, so it must not be kept.
+	 * @param chunk_consumer Called with each chunk in order.
+	 */
+	public void readChunks(Consumer<CharSequence> chunk_consumer) throws IOException {
+		char[] chunk = new char[default_chunk_length];
+		try (Reader reader = openReader()) {
+			int read = read_chunk(reader, chunk);
+			while (read != -1) {
+				chunk_consumer.accept(CharBuffer.wrap(chunk, 0, read));
+				read = read_chunk(reader, chunk);
+			}
+		}
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Reads one chunk, timed on its own so that the consumer's work is not counted as file reading.
+	 */
+	private static int read_chunk(Reader reader, char[] chunk) throws IOException {
+		Stage_Event event = Instrumentation.begin(Stage.FILE_READ);
+		int read = reader.read(chunk);
+		Instrumentation.end(event, Math.max(read, 0), 0);
+		return read;
+	}
+	
+	/**
+	 * Replaces the file with the given chunks written in order, without first joining them into one String.
+	 * @param chunks The text to write.
+	 */
+	public void writeChunks(Iterable<? extends CharSequence> chunks) throws IOException {
+		Stage_Event event = Instrumentation.begin(Stage.FILE_WRITE);
+		long characters = 0;
+		try (Atomic_Replacement_Stream output = openOutputStream()) {
+			Writer writer = new OutputStreamWriter(output, charset);
+			for (CharSequence chunk : chunks) {
+				writer.append(chunk);
+				characters += chunk.length();
+			}
+			writer.flush();
+			output.commit();
+		}
+		Instrumentation.end(event, characters, 0);
+	}
+	
+	/**
+	 * @return The length of the file in bytes, or 0 if it does not exist.
+	 */
+	public long length() {
+		return path.toFile().length();
+	}
+	
+	/**
+	 * Opens a buffered stream over the file's bytes, for callers that must not hold the whole file in memory.
+	 * The caller is responsible for closing it.
+	 */
+	public InputStream openInputStream() throws IOException {
+		return new BufferedInputStream(Files.newInputStream(path), default_chunk_length);
+	}
+	
+	/**
+	 * Opens a buffered stream whose bytes replace the file when it is committed. Until then the file keeps its
+	 * previous contents, and closing the stream without committing leaves them in place. The caller is responsible
+	 * for closing it.
+	 */
+	public Atomic_Replacement_Stream openOutputStream() throws IOException {
+		return new Atomic_Replacement_Stream(path, default_chunk_length);
+	}
+	
+	/**
+	 * Opens a reader decoding the file in this accesser's charset. Malformed input is replaced rather than rejected.
+	 */
+	public Reader openReader() throws IOException {
+		return new InputStreamReader(openInputStream(), charset);
+	}
+
+}
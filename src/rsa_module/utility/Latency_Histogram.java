@@ -0,0 +1,76 @@
+package rsa_module.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, with constant memory regardless of how many samples are recorded.
+ * Each power of two is split into 8 buckets, so a reported percentile is within 12.5% of the true value.
+ * @author James Talbott
+ */
+public class Latency_Histogram {
+	
+	private static final int sub_bucket_bits = 3;
+	
+	private static final int sub_buckets = 1 << sub_bucket_bits;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(64 * sub_buckets);
+	
+	private final AtomicLong total_count = new AtomicLong();
+	
+	private final AtomicLong total_nanos = new AtomicLong();
+	
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucket_of(value));
+		total_count.incrementAndGet();
+		total_nanos.addAndGet(value);
+	}
+	
+	private static int bucket_of(long value) {
+		if (value < sub_buckets) {
+			return (int) value;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int sub_bucket = (int) (value >>> (magnitude - sub_bucket_bits)) & (sub_buckets - 1);
+		return (magnitude - sub_bucket_bits + 1) * sub_buckets + sub_bucket;
+	}
+	
+	private static long upper_bound_of(int bucket) {
+		if (bucket < sub_buckets) {
+			return bucket;
+		}
+		int magnitude = bucket / sub_buckets + sub_bucket_bits - 1;
+		long sub_bucket = bucket % sub_buckets;
+		return ((sub_buckets + sub_bucket + 1) << (magnitude - sub_bucket_bits)) - 1;
+	}
+	
+	public long getCount() {
+		return total_count.get();
+	}
+	
+	public long getMeanNanos() {
+		long count = total_count.get();
+		return count == 0 ? 0 : total_nanos.get() / count;
+	}
+	
+	/**
+	 * @param percentile A percentile between 0 and 100.
+	 * @return The upper bound of the bucket holding that percentile, or 0 if nothing has been recorded.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long count = total_count.get();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int bucket = 0; bucket < counts.length(); bucket++) {
+			seen += counts.get(bucket);
+			if (seen >= rank) {
+				return upper_bound_of(bucket);
+			}
+		}
+		return upper_bound_of(counts.length() - 1);
+	}
+}
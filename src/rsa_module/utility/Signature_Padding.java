@@ -0,0 +1,65 @@
+package rsa_module.utility;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Encodes a message digest for signing as EMSA-PKCS1-v1_5 does (RFC 8017, section 9.2): 0x00 0x01, then 0xFF bytes,
+ * then 0x00, the DER header naming SHA-256 and the digest, filling one byte less than the modulus.
+ * Everything but the digest depends only on the modulus length, so it is built once per key as a padding value
+ * with the digest bytes left zero, and a digest is encoded by filling them in.
+ * @author James Talbott
+ */
+public class Signature_Padding {
+	
+	public static final String digest_algorithm = "SHA-256";
+	
+	private static final byte[] digest_info_header = {0x30, 0x31, 0x30, 0x0d, 0x06, 0x09, 0x60, (byte) 0x86, 0x48, 0x01,
+			0x65, 0x03, 0x04, 0x02, 0x01, 0x05, 0x00, 0x04, 0x20};
+	
+	private static final int digest_length = 32;
+	
+	private static final int minimum_fill_length = 8;
+	
+	/**
+	 * @return A new SHA-256 digest, to be kept by one thread.
+	 */
+	public static MessageDigest new_digest() {
+		try {
+			return MessageDigest.getInstance(digest_algorithm);
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException(digest_algorithm + " is unavailable.", nsae);
+		}
+	}
+	
+	/**
+	 * @param modulus_length_in_bytes The number of bytes needed to hold the modulus.
+	 * @return The encoded message with an all zero digest.
+	 */
+	public static BigInteger padding(int modulus_length_in_bytes) {
+		int fill_length = modulus_length_in_bytes - 3 - digest_info_header.length - digest_length;
+		if (fill_length < minimum_fill_length) {
+			throw new IllegalArgumentException("Modulus is too small to sign with " + digest_algorithm + ".");
+		}
+		byte[] encoded = new byte[modulus_length_in_bytes];
+		encoded[1] = 0x01;
+		for (int index = 2; index < 2 + fill_length; index++) {
+			encoded[index] = (byte) 0xFF;
+		}
+		System.arraycopy(digest_info_header, 0, encoded, 3 + fill_length, digest_info_header.length);
+		return new BigInteger(1, encoded);
+	}
+	
+	/**
+	 * @param padding The padding value for the signing key's modulus.
+	 * @param digest A SHA-256 digest.
+	 * @return The encoded message, smaller than the modulus.
+	 */
+	public static BigInteger encode(BigInteger padding, byte[] digest) {
+		if (digest.length != digest_length) {
+			throw new IllegalArgumentException("Digest must be " + digest_length + " bytes.");
+		}
+		return padding.or(new BigInteger(1, digest));
+	}
+}